@@ -105,6 +105,20 @@ interface Session {
   notes?: string
 }
 
+interface UserSummary {
+  id: number
+  username: string
+  fullName: string
+  location?: string
+  rating: number
+  totalReviews: number
+}
+
+interface RequestsWithUsers {
+  items: SessionRequest[]
+  users: Record<number, UserSummary>
+}
+
 interface RequestWithDetails extends SessionRequest {
   learnerName?: string
   teacherName?: string
@@ -302,79 +316,40 @@ export default function DashboardPage() {
 
       setSessions([...teacherSessions, ...learnerSessions])
 
-      // Load session requests (both sent and received)
-      const [sentRequestsRes, receivedRequestsRes] = await Promise.all([
-        fetch(`http://localhost:8080/api/session-requests/learner/${userIdValue}`, {
+      // Load session requests (both sent and received) with the users they reference, plus the skill catalog for names
+      const [sentRequestsRes, receivedRequestsRes, skillsRes] = await Promise.all([
+        fetch(`http://localhost:8080/api/session-requests/learner/${userIdValue}?include=users`, {
+          headers: { 'Authorization': `Bearer ${token}` }
+        }),
+        fetch(`http://localhost:8080/api/session-requests/teacher/${userIdValue}?include=users`, {
           headers: { 'Authorization': `Bearer ${token}` }
         }),
-        fetch(`http://localhost:8080/api/session-requests/teacher/${userIdValue}`, {
+        fetch('http://localhost:8080/api/skills', {
           headers: { 'Authorization': `Bearer ${token}` }
         })
       ])
 
-      const sentRequests = sentRequestsRes.ok ? await sentRequestsRes.json() : []
-      const receivedRequests = receivedRequestsRes.ok ? await receivedRequestsRes.json() : []
+      const sent: RequestsWithUsers = sentRequestsRes.ok ? await sentRequestsRes.json() : { items: [], users: {} }
+      const received: RequestsWithUsers = receivedRequestsRes.ok ? await receivedRequestsRes.json() : { items: [], users: {} }
+      const skills: Skill[] = skillsRes.ok ? await skillsRes.json() : []
 
-      const allRequests = [...sentRequests, ...receivedRequests]
+      const allRequests = [...sent.items, ...received.items]
       setSessionRequests(allRequests)
 
-      // Enrich requests with user and skill details
-      const enrichedRequests = await Promise.all(
-        allRequests.map(async (request: SessionRequest) => {
-          const enriched: RequestWithDetails = { ...request }
-          
-          try {
-            // Fetch learner details
-            const learnerRes = await fetch(`http://localhost:8080/api/users/${request.learnerId}`, {
-              headers: { 'Authorization': `Bearer ${token}` }
-            })
-            if (learnerRes.ok) {
-              const learner = await learnerRes.json()
-              enriched.learnerName = learner.fullName || learner.username
-              
-              // Try to get skill name from learner's skills
-              if (!enriched.skillName) {
-                const learnerSkill = [...(learner.offeredSkills || []), ...(learner.wantedSkills || [])]
-                  .find((s: Skill) => s.id === request.skillId)
-                if (learnerSkill) {
-                  enriched.skillName = learnerSkill.name
-                }
-              }
-            }
-
-            // Fetch teacher details
-            const teacherRes = await fetch(`http://localhost:8080/api/users/${request.teacherId}`, {
-              headers: { 'Authorization': `Bearer ${token}` }
-            })
-            if (teacherRes.ok) {
-              const teacher = await teacherRes.json()
-              enriched.teacherName = teacher.fullName || teacher.username
-              
-              // Try to get skill name from teacher's skills if not found yet
-              if (!enriched.skillName) {
-                const teacherSkill = [...(teacher.offeredSkills || []), ...(teacher.wantedSkills || [])]
-                  .find((s: Skill) => s.id === request.skillId)
-                if (teacherSkill) {
-                  enriched.skillName = teacherSkill.name
-                }
-              }
-            }
-
-            // Fallback: try to find skill in current user's skills
-            if (!enriched.skillName && user) {
-              const userSkill = [...(user.offeredSkills || []), ...(user.wantedSkills || [])]
-                .find(s => s.id === request.skillId)
-              if (userSkill) {
-                enriched.skillName = userSkill.name
-              }
-            }
-          } catch (err) {
-            console.error('Error enriching request:', err)
-          }
-
-          return enriched
-        })
-      )
+      // Enrich requests with user and skill names
+      const usersById: Record<number, UserSummary> = { ...sent.users, ...received.users }
+      const skillsById = new Map(skills.map(skill => [skill.id, skill]))
+      const enrichedRequests = allRequests.map((request: SessionRequest) => {
+        const learner = usersById[request.learnerId]
+        const teacher = usersById[request.teacherId]
+        const enriched: RequestWithDetails = {
+          ...request,
+          learnerName: learner ? learner.fullName || learner.username : undefined,
+          teacherName: teacher ? teacher.fullName || teacher.username : undefined,
+          skillName: skillsById.get(request.skillId)?.name
+        }
+        return enriched
+      })
 
       setRequestsWithDetails(enrichedRequests)
       console.log('User data loading completed')
@@ -28,11 +28,10 @@ interface SessionRequest {
   responseMessage?: string
 }
 
-interface User {
+interface UserSummary {
   id: number
   username: string
   fullName: string
-  offeredSkills: Skill[]
 }
 
 interface Skill {
@@ -43,7 +42,7 @@ interface Skill {
 
 export default function SessionRequestsPage() {
   const [requests, setRequests] = useState<SessionRequest[]>([])
-  const [users, setUsers] = useState<User[]>([])
+  const [users, setUsers] = useState<Record<number, UserSummary>>({})
   const [skills, setSkills] = useState<Skill[]>([])
   const [loading, setLoading] = useState(true)
   const [selectedRequest, setSelectedRequest] = useState<SessionRequest | null>(null)
@@ -70,25 +69,18 @@ export default function SessionRequestsPage() {
       const token = localStorage.getItem('token')
       const userId = localStorage.getItem('userId')
 
-      // Load session requests for this teacher
-      const requestsResponse = await fetch(`http://localhost:8080/api/session-requests/teacher/${userId}`, {
-        headers: { 'Authorization': `Bearer ${token}` }
-      })
-
-      // Load all users and skills for display
-      const [usersResponse, skillsResponse] = await Promise.all([
-        fetch('http://localhost:8080/api/users', { headers: { 'Authorization': `Bearer ${token}` } }),
+      // Load this teacher's session requests with the learners they reference, and skills for display
+      const [requestsResponse, skillsResponse] = await Promise.all([
+        fetch(`http://localhost:8080/api/session-requests/teacher/${userId}?include=users`, {
+          headers: { 'Authorization': `Bearer ${token}` }
+        }),
         fetch('http://localhost:8080/api/skills', { headers: { 'Authorization': `Bearer ${token}` } })
       ])
 
       if (requestsResponse.ok) {
         const requestsData = await requestsResponse.json()
-        setRequests(requestsData)
-      }
-
-      if (usersResponse.ok) {
-        const usersData = await usersResponse.json()
-        setUsers(usersData)
+        setRequests(requestsData.items)
+        setUsers(requestsData.users)
       }
 
       if (skillsResponse.ok) {
@@ -103,7 +95,7 @@ export default function SessionRequestsPage() {
   }
 
   const getUserById = (userId: number) => {
-    return users.find(user => user.id === userId)
+    return users[userId]
   }
 
   const getSkillById = (skillId: number) => {
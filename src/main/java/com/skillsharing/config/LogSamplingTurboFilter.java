@@ -0,0 +1,47 @@
+package com.skillsharing.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps one in every {@code sampleRate} events at or below {@code maxLevel} for each configured
+ * logger category. Runs before the logging event is created, so dropped events cost no allocation.
+ */
+public class LogSamplingTurboFilter extends TurboFilter {
+
+    private final Map<String, AtomicLong> categories = new ConcurrentHashMap<>();
+    private int sampleRate = 100;
+    private Level maxLevel = Level.INFO;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // isXxxEnabled() checks pass a null format; only sample real log statements
+        if (format == null || level.levelInt > maxLevel.levelInt) {
+            return FilterReply.NEUTRAL;
+        }
+        AtomicLong counter = categories.get(logger.getName());
+        if (counter == null) {
+            return FilterReply.NEUTRAL;
+        }
+        return counter.getAndIncrement() % sampleRate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public void addCategory(String category) {
+        categories.put(category, new AtomicLong());
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    public void setMaxLevel(String maxLevel) {
+        this.maxLevel = Level.toLevel(maxLevel, Level.INFO);
+    }
+}
@@ -0,0 +1,37 @@
+package com.skillsharing.config;
+
+import com.skillsharing.repository.*;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Exposes the number of stored entities per repository as gauges, sampled only on scrape
+     */
+    @Bean
+    public MeterBinder repositoryEntityGauges(UserRepository userRepository,
+                                              SkillRepository skillRepository,
+                                              SessionRepository sessionRepository,
+                                              SessionRequestRepository sessionRequestRepository,
+                                              MessageRepository messageRepository,
+                                              ReviewRepository reviewRepository) {
+        return registry -> {
+            Gauge.builder("repository.entities", userRepository, UserRepository::count)
+                    .tag("repository", "UserRepository").register(registry);
+            Gauge.builder("repository.entities", skillRepository, SkillRepository::count)
+                    .tag("repository", "SkillRepository").register(registry);
+            Gauge.builder("repository.entities", sessionRepository, SessionRepository::count)
+                    .tag("repository", "SessionRepository").register(registry);
+            Gauge.builder("repository.entities", sessionRequestRepository, SessionRequestRepository::count)
+                    .tag("repository", "SessionRequestRepository").register(registry);
+            Gauge.builder("repository.entities", messageRepository, MessageRepository::count)
+                    .tag("repository", "MessageRepository").register(registry);
+            Gauge.builder("repository.entities", reviewRepository, ReviewRepository::count)
+                    .tag("repository", "ReviewRepository").register(registry);
+        };
+    }
+}
@@ -1,6 +1,8 @@
 package com.skillsharing.config;
 
 import com.skillsharing.security.JwtAuthenticationFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -32,6 +34,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
             .and()
             .authorizeRequests()
                 .antMatchers("/api/auth/**", "/h2-console/**").permitAll()
+                .antMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                 .anyRequest().authenticated()
             .and()
             .sessionManagement()
@@ -52,7 +55,31 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     }
     
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder();
+        Timer encodeTimer = Timer.builder("security.password.bcrypt")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        Timer matchesTimer = Timer.builder("security.password.bcrypt")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+
+        // Delegates to BCrypt while timing each hash, since BCrypt dominates login and register latency
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return encodeTimer.record(() -> bcrypt.encode(rawPassword));
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return matchesTimer.record(() -> bcrypt.matches(rawPassword, encodedPassword));
+            }
+
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                return bcrypt.upgradeEncoding(encodedPassword);
+            }
+        };
     }
 }
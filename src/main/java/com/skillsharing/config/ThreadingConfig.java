@@ -0,0 +1,37 @@
+package com.skillsharing.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ThreadingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThreadingConfig.class);
+
+    @Value("${threads.virtual:false}")
+    private boolean virtual;
+
+    /**
+     * Runs request handling on a virtual thread per request when threads.virtual is set, so
+     * requests blocked on Google calls no longer hold one of the Tomcat pool's platform threads.
+     * Falls back to the pool, with a warning, on runtimes without virtual threads.
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> requestThreads() {
+        if (virtual && !VirtualThreads.isAvailable()) {
+            logger.warn("event=threads.virtual_unavailable javaVersion={} fallback=platform", Runtime.version());
+        }
+        boolean useVirtual = virtual && VirtualThreads.isAvailable();
+        logger.info("event=threads.mode requests={}", useVirtual ? "virtual" : "platform");
+        return handler -> {
+            if (useVirtual) {
+                handler.setExecutor(VirtualThreads.newPerTaskExecutor("http-vt-"));
+            }
+        };
+    }
+}
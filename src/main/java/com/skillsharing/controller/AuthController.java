@@ -12,12 +12,16 @@ import com.skillsharing.model.User;
 import com.skillsharing.security.JwtUtil;
 import com.skillsharing.service.UserService;
 import javax.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.security.GeneralSecurityException;
 import java.util.Collections;
 import java.util.Optional;
 
@@ -26,6 +30,8 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class AuthController {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
+    private static final Logger usernameCheckLogger = LoggerFactory.getLogger(AuthController.class.getName() + ".usernameCheck");
     private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
 
     @Autowired
@@ -36,6 +42,9 @@ public class AuthController {
 
     @Autowired
     private PasswordEncoder passwordEncoder;
+
+    // Shared so Google's signing keys are fetched once per their cache lifetime, not per login
+    private volatile GoogleIdTokenVerifier idTokenVerifier;
     
     @PostMapping("/register")
     public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest request) {
@@ -86,12 +95,7 @@ public class AuthController {
     public ResponseEntity<?> googleLogin(@RequestBody GoogleLoginRequest request) {
         try {
             // Verify the Google ID token and extract user information
-            GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier.Builder(
-                    GoogleNetHttpTransport.newTrustedTransport(), JSON_FACTORY)
-                    .setAudience(Collections.singletonList("1001273272414-r8edq47mlv5j2b0b75v1db1dkt47rjlj.apps.googleusercontent.com"))
-                    .build();
-
-            GoogleIdToken idToken = verifier.verify(request.getIdToken());
+            GoogleIdToken idToken = idTokenVerifier().verify(request.getIdToken());
             if (idToken == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid Google ID token");
             }
@@ -112,8 +116,6 @@ public class AuthController {
                 fullName = givenName + " " + familyName;
             }
 
-            System.out.println("Google OAuth successful for: " + email + " (" + fullName + ") with Google ID: " + googleId);
-
             // Check if user exists with this Google ID
             Optional<User> existingUserOpt = userService.findByGoogleId(googleId);
             User user;
@@ -121,8 +123,6 @@ public class AuthController {
             if (existingUserOpt.isPresent()) {
                 // User exists, update their Google tokens and info
                 user = existingUserOpt.get();
-                System.out.println("Found existing Google user: " + user.getUsername() + " (ID: " + user.getId() + ", has username: " + (user.getUsername() != null && !user.getUsername().trim().isEmpty()) + ")");
-
                 // Update basic Google OAuth info
                 user.setGoogleEmail(email);
                 user.setGoogleAccessToken(request.getAccessToken());
@@ -139,7 +139,7 @@ public class AuthController {
                     user.setFullName(fullName);
                 }
                 user = userService.updateUser(user);
-                System.out.println("Updated existing user: " + user.getUsername());
+                logger.info("event=auth.google_login outcome=existing_user userId={}", user.getId());
             } else {
                 // Check if user exists with this email
                 Optional<User> emailUserOpt = userService.findByEmail(email);
@@ -161,7 +161,7 @@ public class AuthController {
                         user.setFullName(fullName);
                     }
                     user = userService.updateUser(user);
-                    System.out.println("Linked Google account to existing user: " + user.getUsername());
+                    logger.info("event=auth.google_login outcome=linked_account userId={}", user.getId());
                 } else {
                     // Create new user with Google information (no username initially)
                     user = new User();
@@ -183,7 +183,7 @@ public class AuthController {
                     user.setPassword(passwordEncoder.encode(java.util.UUID.randomUUID().toString()));
 
                     user = userService.registerUser(user);
-                    System.out.println("Created new Google user (no username yet): " + user.getId());
+                    logger.info("event=auth.google_login outcome=new_user userId={}", user.getId());
                 }
             }
 
@@ -197,8 +197,7 @@ public class AuthController {
                                                       user.getEmail(), user.getId()));
 
         } catch (Exception e) {
-            System.err.println("Google authentication failed: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("event=auth.google_login.failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Google authentication failed: " + e.getMessage());
         }
@@ -206,8 +205,8 @@ public class AuthController {
 
     @GetMapping("/check-username")
     public ResponseEntity<?> checkUsernameAvailability(@RequestParam String username) {
-        boolean exists = userService.findByUsername(username).isPresent();
-        System.out.println("Username availability check for '" + username + "': " + (exists ? "TAKEN" : "AVAILABLE"));
+        boolean exists = userService.isUsernameTaken(username);
+        usernameCheckLogger.info("event=username.check available={}", !exists);
         if (exists) {
             return ResponseEntity.status(409).body("Username already exists");
         }
@@ -233,4 +232,20 @@ public class AuthController {
         public Long getTokenExpiry() { return tokenExpiry; }
         public void setTokenExpiry(Long tokenExpiry) { this.tokenExpiry = tokenExpiry; }
     }
+
+    private GoogleIdTokenVerifier idTokenVerifier() throws GeneralSecurityException, IOException {
+        GoogleIdTokenVerifier verifier = idTokenVerifier;
+        if (verifier == null) {
+            synchronized (this) {
+                verifier = idTokenVerifier;
+                if (verifier == null) {
+                    verifier = new GoogleIdTokenVerifier.Builder(GoogleNetHttpTransport.newTrustedTransport(), JSON_FACTORY)
+                            .setAudience(Collections.singletonList("1001273272414-r8edq47mlv5j2b0b75v1db1dkt47rjlj.apps.googleusercontent.com"))
+                            .build();
+                    idTokenVerifier = verifier;
+                }
+            }
+        }
+        return verifier;
+    }
 }
@@ -1,12 +1,20 @@
 package com.skillsharing.controller;
 
+import com.skillsharing.dto.ConversationSummary;
+import com.skillsharing.dto.UnreadCountsResponse;
 import com.skillsharing.model.Message;
+import com.skillsharing.security.JwtUtil;
+import com.skillsharing.service.MessagePushService;
 import com.skillsharing.service.MessageService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/messages")
@@ -15,6 +23,12 @@ public class MessageController {
     
     @Autowired
     private MessageService messageService;
+
+    @Autowired
+    private MessagePushService messagePushService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
     
     @PostMapping
     public ResponseEntity<Message> sendMessage(@RequestBody Message message) {
@@ -28,6 +42,20 @@ public class MessageController {
         return ResponseEntity.ok(messageService.getConversation(user1Id, user2Id));
     }
     
+    /**
+     * Server-sent event stream of messages received by the authenticated user.
+     * Browsers' EventSource cannot set headers, so the token may also be passed as access_token.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessages(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestParam(value = "access_token", required = false) String accessToken) {
+        String token = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7)
+                : accessToken;
+        return messagePushService.subscribe(jwtUtil.extractUserId(token));
+    }
+    
     @GetMapping("/received/{userId}")
     public ResponseEntity<List<Message>> getReceivedMessages(@PathVariable Long userId) {
         return ResponseEntity.ok(messageService.getReceivedMessages(userId));
@@ -41,4 +69,49 @@ public class MessageController {
         }
         return ResponseEntity.notFound().build();
     }
+
+    @GetMapping("/inbox")
+    public ResponseEntity<?> getInbox(
+            @RequestParam Long userId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body("page must be >= 0 and size between 1 and 100");
+        }
+        List<ConversationSummary> inbox = messageService.getInbox(userId, page, size);
+        return ResponseEntity.ok(inbox);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchMessages(
+            @RequestParam Long userId,
+            @RequestParam String q,
+            @RequestParam(required = false) Long with,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        if (q.trim().isEmpty()) {
+            return ResponseEntity.badRequest().body("q must not be empty");
+        }
+        if (size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body("size must be between 1 and 100");
+        }
+        return ResponseEntity.ok(messageService.searchMessages(userId, q, with, cursor, size));
+    }
+
+    @GetMapping("/unread-counts")
+    public ResponseEntity<UnreadCountsResponse> getUnreadCounts(@RequestParam Long userId) {
+        return ResponseEntity.ok(messageService.getUnreadCounts(userId));
+    }
+
+    /**
+     * Marks every message senderId sent to receiverId, up to and including upToMessageId, as read
+     */
+    @PutMapping("/conversation/read")
+    public ResponseEntity<Map<String, Integer>> markConversationAsRead(
+            @RequestParam Long receiverId,
+            @RequestParam Long senderId,
+            @RequestParam Long upToMessageId) {
+        int marked = messageService.markConversationAsRead(receiverId, senderId, upToMessageId);
+        return ResponseEntity.ok(Collections.singletonMap("marked", marked));
+    }
 }
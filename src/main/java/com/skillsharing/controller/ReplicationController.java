@@ -0,0 +1,43 @@
+package com.skillsharing.controller;
+
+import com.skillsharing.dto.ReplicationStatus;
+import com.skillsharing.replication.ChangeLog;
+import com.skillsharing.replication.ReplicaClient;
+import com.skillsharing.replication.ReplicationRole;
+import com.skillsharing.replication.ReplicationServer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/replication")
+@CrossOrigin(origins = "*")
+public class ReplicationController {
+
+    @Value("${replication.role:standalone}")
+    private String role;
+
+    @Autowired
+    private ChangeLog changeLog;
+
+    @Autowired
+    private ReplicationServer replicationServer;
+
+    @Autowired
+    private ReplicaClient replicaClient;
+
+    @GetMapping("/status")
+    public ResponseEntity<?> status() {
+        if (ReplicationRole.PRIMARY.equals(role)) {
+            return ResponseEntity.ok(new ReplicationStatus(role, changeLog.head(), replicationServer.replicas(),
+                    null, null, null, null, null));
+        }
+        if (ReplicationRole.REPLICA.equals(role)) {
+            return ResponseEntity.ok(new ReplicationStatus(role, null, null, replicaClient.isConnected(),
+                    replicaClient.appliedOffset(), replicaClient.primaryHead(), replicaClient.lagRecords(),
+                    replicaClient.lagMs()));
+        }
+        return ResponseEntity.ok(new ReplicationStatus(role, null, null, null, null, null, null, null));
+    }
+}
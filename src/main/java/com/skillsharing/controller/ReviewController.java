@@ -26,6 +26,25 @@ public class ReviewController {
         return ResponseEntity.ok(reviewService.getReviewsForUser(userId));
     }
     
+    /**
+     * Paged variant of the list above with the user's rating summary; cursor is the ID of the
+     * last review seen
+     */
+    @GetMapping("/user/{userId}/page")
+    public ResponseEntity<?> getReviewPage(@PathVariable Long userId,
+                                           @RequestParam(required = false) Long cursor,
+                                           @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body("size must be between 1 and 100");
+        }
+        if (!reviewService.isValidCursor(userId, cursor)) {
+            return ResponseEntity.badRequest().body("cursor must be the ID of a review of this user");
+        }
+        return reviewService.getReviewPage(userId, cursor, size)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
     @GetMapping
     public ResponseEntity<List<Review>> getAllReviews() {
         return ResponseEntity.ok(reviewService.getAllReviews());
@@ -0,0 +1,26 @@
+package com.skillsharing.controller;
+
+import com.skillsharing.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "*")
+public class SearchController {
+
+    @Autowired
+    private UserService userService;
+
+    @GetMapping
+    public ResponseEntity<?> search(@RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+        if (q.trim().isEmpty()) {
+            return ResponseEntity.badRequest().body("q must not be empty");
+        }
+        if (limit < 1 || limit > 100) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and 100");
+        }
+        return ResponseEntity.ok(userService.searchText(q, limit));
+    }
+}
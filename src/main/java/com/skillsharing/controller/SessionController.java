@@ -1,13 +1,17 @@
 package com.skillsharing.controller;
 
+import com.skillsharing.dto.WithUsers;
 import com.skillsharing.model.Session;
 import com.skillsharing.model.SessionRequest;
+import com.skillsharing.service.BookingConflictException;
 import com.skillsharing.service.SessionRequestService;
 import com.skillsharing.service.SessionService;
+import com.skillsharing.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -15,15 +19,20 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class SessionController {
 
+    private static final String INCLUDE_USERS = "users";
+
     @Autowired
     private SessionService sessionService;
 
     @Autowired
     private SessionRequestService sessionRequestService;
 
+    @Autowired
+    private UserService userService;
+
     // Keep this for backward compatibility, but it should create a session request instead
     @PostMapping
-    public ResponseEntity<SessionRequest> createSessionRequest(@RequestBody Session session) {
+    public ResponseEntity<?> createSessionRequest(@RequestBody Session session) {
         // Convert session data to session request
         SessionRequest request = new SessionRequest();
         request.setLearnerId(session.getLearnerId());
@@ -35,13 +44,19 @@ public class SessionController {
         request.setLocation(session.getLocation());
         request.setNotes(session.getNotes());
 
-        SessionRequest createdRequest = sessionRequestService.createSessionRequest(request);
-        return ResponseEntity.ok(createdRequest);
+        try {
+            SessionRequest createdRequest = sessionRequestService.createSessionRequest(request);
+            return ResponseEntity.ok(createdRequest);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (BookingConflictException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
     }
     
     @GetMapping
-    public ResponseEntity<List<Session>> getAllSessions() {
-        return ResponseEntity.ok(sessionService.getAllSessions());
+    public ResponseEntity<?> getAllSessions(@RequestParam(required = false) String include) {
+        return list(sessionService.getAllSessions(), include);
     }
     
     @GetMapping("/{id}")
@@ -52,21 +67,47 @@ public class SessionController {
     }
     
     @GetMapping("/teacher/{teacherId}")
-    public ResponseEntity<List<Session>> getSessionsByTeacher(@PathVariable Long teacherId) {
-        return ResponseEntity.ok(sessionService.getSessionsByTeacher(teacherId));
+    public ResponseEntity<?> getSessionsByTeacher(@PathVariable Long teacherId, @RequestParam(required = false) String include) {
+        return list(sessionService.getSessionsByTeacher(teacherId), include);
     }
     
     @GetMapping("/learner/{learnerId}")
-    public ResponseEntity<List<Session>> getSessionsByLearner(@PathVariable Long learnerId) {
-        return ResponseEntity.ok(sessionService.getSessionsByLearner(learnerId));
+    public ResponseEntity<?> getSessionsByLearner(@PathVariable Long learnerId, @RequestParam(required = false) String include) {
+        return list(sessionService.getSessionsByLearner(learnerId), include);
     }
     
     @PutMapping("/{id}/status")
     public ResponseEntity<?> updateSessionStatus(@PathVariable Long id, @RequestParam String status) {
-        Session updated = sessionService.updateSessionStatus(id, status);
+        Session updated;
+        try {
+            updated = sessionService.updateSessionStatus(id, status);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (BookingConflictException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
         if (updated != null) {
             return ResponseEntity.ok(updated);
         }
         return ResponseEntity.notFound().build();
     }
+
+    /**
+     * The list as is, or with ?include=users wrapped with summaries of the teachers and learners
+     * it references, so a page needs no per-user lookups
+     */
+    private ResponseEntity<?> list(List<Session> sessions, String include) {
+        if (include == null) {
+            return ResponseEntity.ok(sessions);
+        }
+        if (!INCLUDE_USERS.equals(include)) {
+            return ResponseEntity.badRequest().body("include must be '" + INCLUDE_USERS + "'");
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Session session : sessions) {
+            ids.add(session.getTeacherId());
+            ids.add(session.getLearnerId());
+        }
+        return ResponseEntity.ok(new WithUsers<>(sessions, userService.findSummaries(ids)));
+    }
 }
@@ -1,7 +1,9 @@
 package com.skillsharing.controller;
 
+import com.skillsharing.dto.WithUsers;
 import com.skillsharing.model.SessionRequest;
 import com.skillsharing.model.User;
+import com.skillsharing.service.BookingConflictException;
 import com.skillsharing.service.SessionRequestService;
 import com.skillsharing.service.GoogleMeetService;
 import com.skillsharing.service.UserService;
@@ -9,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +20,8 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class SessionRequestController {
 
+    private static final String INCLUDE_USERS = "users";
+
     @Autowired
     private SessionRequestService sessionRequestService;
 
@@ -27,9 +32,15 @@ public class SessionRequestController {
     private UserService userService;
 
     @PostMapping
-    public ResponseEntity<SessionRequest> createSessionRequest(@RequestBody SessionRequest sessionRequest) {
-        SessionRequest createdRequest = sessionRequestService.createSessionRequest(sessionRequest);
-        return ResponseEntity.ok(createdRequest);
+    public ResponseEntity<?> createSessionRequest(@RequestBody SessionRequest sessionRequest) {
+        try {
+            SessionRequest createdRequest = sessionRequestService.createSessionRequest(sessionRequest);
+            return ResponseEntity.ok(createdRequest);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (BookingConflictException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
@@ -40,35 +51,36 @@ public class SessionRequestController {
     }
 
     @GetMapping
-    public ResponseEntity<List<SessionRequest>> getAllSessionRequests() {
-        return ResponseEntity.ok(sessionRequestService.getAllSessionRequests());
+    public ResponseEntity<?> getAllSessionRequests(@RequestParam(required = false) String include) {
+        return list(sessionRequestService.getAllSessionRequests(), include);
     }
 
     @GetMapping("/teacher/{teacherId}")
-    public ResponseEntity<List<SessionRequest>> getRequestsByTeacher(@PathVariable Long teacherId) {
-        return ResponseEntity.ok(sessionRequestService.getSessionRequestsByTeacher(teacherId));
+    public ResponseEntity<?> getRequestsByTeacher(@PathVariable Long teacherId, @RequestParam(required = false) String include) {
+        return list(sessionRequestService.getSessionRequestsByTeacher(teacherId), include);
     }
 
     @GetMapping("/learner/{learnerId}")
-    public ResponseEntity<List<SessionRequest>> getRequestsByLearner(@PathVariable Long learnerId) {
-        return ResponseEntity.ok(sessionRequestService.getSessionRequestsByLearner(learnerId));
+    public ResponseEntity<?> getRequestsByLearner(@PathVariable Long learnerId, @RequestParam(required = false) String include) {
+        return list(sessionRequestService.getSessionRequestsByLearner(learnerId), include);
     }
 
     @GetMapping("/teacher/{teacherId}/pending")
-    public ResponseEntity<List<SessionRequest>> getPendingRequestsByTeacher(@PathVariable Long teacherId) {
-        return ResponseEntity.ok(sessionRequestService.getPendingRequestsByTeacher(teacherId));
+    public ResponseEntity<?> getPendingRequestsByTeacher(@PathVariable Long teacherId, @RequestParam(required = false) String include) {
+        return list(sessionRequestService.getPendingRequestsByTeacher(teacherId), include);
     }
 
     @PostMapping("/{requestId}/approve")
     public ResponseEntity<?> approveRequest(@PathVariable Long requestId, @RequestParam(required = false) String message) {
-        System.out.println("Received approve request for ID: " + requestId + ", message: " + message);
-
-        SessionRequest updated = sessionRequestService.approveSessionRequest(requestId, message);
+        SessionRequest updated;
+        try {
+            updated = sessionRequestService.approveSessionRequest(requestId, message);
+        } catch (BookingConflictException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
         if (updated != null) {
-            System.out.println("Request approved successfully");
             return ResponseEntity.ok(updated);
         }
-        System.out.println("Request approval failed - request not found");
         return ResponseEntity.notFound().build();
     }
 
@@ -121,4 +133,22 @@ public class SessionRequestController {
             return ResponseEntity.status(500).body("Error testing calendar access: " + e.getMessage());
         }
     }
+
+    /**
+     * With ?include=users, the requests come back alongside a summary of every learner and teacher they name
+     */
+    private ResponseEntity<?> list(List<SessionRequest> requests, String include) {
+        if (include == null) {
+            return ResponseEntity.ok(requests);
+        }
+        if (!INCLUDE_USERS.equals(include)) {
+            return ResponseEntity.badRequest().body("include must be '" + INCLUDE_USERS + "'");
+        }
+        List<Long> ids = new ArrayList<>();
+        for (SessionRequest request : requests) {
+            ids.add(request.getLearnerId());
+            ids.add(request.getTeacherId());
+        }
+        return ResponseEntity.ok(new WithUsers<>(requests, userService.findSummaries(ids)));
+    }
 }
@@ -0,0 +1,52 @@
+package com.skillsharing.controller;
+
+import com.skillsharing.dto.SkillSuggestion;
+import com.skillsharing.model.Skill;
+import com.skillsharing.service.SkillService;
+import com.skillsharing.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/skills")
+@CrossOrigin(origins = "*")
+public class SkillController {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SkillService skillService;
+
+    @GetMapping
+    public ResponseEntity<List<Skill>> getCatalog(@RequestParam(required = false) String category) {
+        return ResponseEntity.ok(skillService.getCatalog(category));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getSkill(@PathVariable Long id) {
+        return skillService.findById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/autocomplete")
+    public ResponseEntity<?> autocomplete(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > 50) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and 50");
+        }
+        return ResponseEntity.ok(userService.completeSkill(prefix, limit));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > 50) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and 50");
+        }
+        List<SkillSuggestion> suggestions = userService.suggestSkills(q, limit);
+        return ResponseEntity.ok(suggestions);
+    }
+}
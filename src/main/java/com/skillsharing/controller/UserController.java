@@ -1,14 +1,26 @@
 package com.skillsharing.controller;
 
+import com.skillsharing.dto.NearbyUser;
+import com.skillsharing.dto.SkillMatch;
+import com.skillsharing.dto.TimeSlot;
+import com.skillsharing.dto.UserSummary;
+import com.skillsharing.index.GeoIndex;
 import com.skillsharing.model.Skill;
 import com.skillsharing.model.User;
 import com.skillsharing.model.UserDTO;
 import com.skillsharing.security.JwtUtil;
+import com.skillsharing.service.SkillMatchingService;
 import com.skillsharing.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,12 +30,23 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/users")
 @CrossOrigin(origins = "*")
 public class UserController {
+
+    private static final Logger usernameCheckLogger = LoggerFactory.getLogger(UserController.class.getName() + ".usernameCheck");
+
+    private static final int MAX_FREE_SLOT_RANGE_DAYS = 31;
+
+    private static final double MAX_NEARBY_RADIUS_KM = 500;
+
+    private static final int MAX_BATCH_IDS = 200;
     
     @Autowired
     private UserService userService;
 
     @Autowired
     private JwtUtil jwtUtil;
+
+    @Autowired
+    private SkillMatchingService skillMatchingService;
     
     @GetMapping
     public ResponseEntity<List<UserDTO>> getAllUsers() {
@@ -33,6 +56,19 @@ public class UserController {
         return ResponseEntity.ok(userDTOs);
     }
     
+    /**
+     * Summaries of many users in one call, e.g. ?ids=3,7,3; repeated IDs are resolved once and
+     * unknown ones are left out
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<?> getUsersBatch(@RequestParam List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_IDS) {
+            return ResponseEntity.badRequest().body("ids must list between 1 and " + MAX_BATCH_IDS + " user IDs");
+        }
+        List<UserSummary> summaries = new ArrayList<>(userService.findSummaries(ids).values());
+        return ResponseEntity.ok(summaries);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getUserById(@PathVariable Long id) {
         return userService.findById(id)
@@ -48,10 +84,100 @@ public class UserController {
         return ResponseEntity.ok(userDTOs);
     }
 
+    @GetMapping("/browse")
+    public ResponseEntity<?> browse(
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) List<String> level,
+            @RequestParam(required = false) Integer minRating,
+            @RequestParam(required = false) List<String> location,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body("page must be >= 0 and size between 1 and 100");
+        }
+        return ResponseEntity.ok(userService.browse(category, level, minRating, location, page, size));
+    }
+
+    @GetMapping("/nearby")
+    public ResponseEntity<?> findNearby(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(defaultValue = "10") double radiusKm,
+            @RequestParam(required = false) String skill,
+            @RequestParam(defaultValue = "50") int limit) {
+        if (!GeoIndex.isValid(lat, lon)) {
+            return ResponseEntity.badRequest().body("lat must be within [-90, 90] and lon within [-180, 180]");
+        }
+        if (radiusKm <= 0 || radiusKm > MAX_NEARBY_RADIUS_KM || limit < 1 || limit > 200) {
+            return ResponseEntity.badRequest().body("radiusKm must be in (0, " + MAX_NEARBY_RADIUS_KM
+                    + "] and limit between 1 and 200");
+        }
+        List<NearbyUser> nearby = userService.findNearby(lat, lon, radiusKm, skill, limit);
+        return ResponseEntity.ok(nearby);
+    }
+
+    @GetMapping("/leaderboard")
+    public ResponseEntity<?> getLeaderboard(
+            @RequestParam(required = false) String skill,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (skill == null && category == null) {
+            return ResponseEntity.badRequest().body("Either skill or category is required");
+        }
+        if (page < 0 || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body("page must be >= 0 and size between 1 and 100");
+        }
+        List<UserDTO> userDTOs = userService.getLeaderboard(skill, category, page, size).stream()
+                .map(UserDTO::new)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(userDTOs);
+    }
+
+    @GetMapping("/{id}/matches")
+    public ResponseEntity<?> getMatches(@PathVariable Long id, @RequestParam(defaultValue = "10") int limit) {
+        if (!userService.findById(id).isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (limit < 1 || limit > 100) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and 100");
+        }
+        List<SkillMatch> matches = skillMatchingService.findMatches(id, limit);
+        return ResponseEntity.ok(matches);
+    }
+
+    @GetMapping("/{id}/free-slots")
+    public ResponseEntity<?> getFreeSlots(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(defaultValue = "60") int duration) {
+        if (!userService.findById(id).isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!from.isBefore(to) || Duration.between(from, to).toDays() > MAX_FREE_SLOT_RANGE_DAYS) {
+            return ResponseEntity.badRequest().body("to must be after from and at most "
+                    + MAX_FREE_SLOT_RANGE_DAYS + " days later");
+        }
+        if (duration < 1) {
+            return ResponseEntity.badRequest().body("duration must be at least 1 minute");
+        }
+        List<TimeSlot> slots = userService.getFreeSlots(id, from, to, duration);
+        return ResponseEntity.ok(slots);
+    }
+
+    @GetMapping("/autocomplete")
+    public ResponseEntity<?> autocomplete(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > 50) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and 50");
+        }
+        return ResponseEntity.ok(userService.completeUsername(prefix, limit));
+    }
+
     @GetMapping("/check-username")
     public ResponseEntity<?> checkUsernameAvailability(@RequestParam String username) {
-        boolean exists = userService.findByUsername(username).isPresent();
-        System.out.println("Username availability check for '" + username + "': " + (exists ? "TAKEN" : "AVAILABLE"));
+        boolean exists = userService.isUsernameTaken(username);
+        usernameCheckLogger.info("event=username.check available={}", !exists);
         if (exists) {
             return ResponseEntity.status(409).body("Username already exists");
         }
@@ -70,6 +196,11 @@ public class UserController {
                                  !user.getUsername().trim().isEmpty() &&
                                  !user.getUsername().equals(currentUser.getUsername());
 
+        if ((user.getLatitude() != null || user.getLongitude() != null)
+                && !GeoIndex.isValid(user.getLatitude(), user.getLongitude())) {
+            return ResponseEntity.badRequest().body("latitude and longitude must be given together and be in range");
+        }
+
         User updated = userService.updateUser(id, user);
         if (updated != null) {
             // If username was updated, generate a new token
@@ -87,6 +218,9 @@ public class UserController {
     
     @PostMapping("/{id}/skills/offered")
     public ResponseEntity<?> addOfferedSkill(@PathVariable Long id, @RequestBody Skill skill) {
+        if (skill.getName() == null || skill.getName().trim().isEmpty()) {
+            return ResponseEntity.badRequest().body("Skill name is required");
+        }
         User updated = userService.addOfferedSkill(id, skill);
         if (updated != null) {
             return ResponseEntity.ok(updated);
@@ -96,6 +230,9 @@ public class UserController {
     
     @PostMapping("/{id}/skills/wanted")
     public ResponseEntity<?> addWantedSkill(@PathVariable Long id, @RequestBody Skill skill) {
+        if (skill.getName() == null || skill.getName().trim().isEmpty()) {
+            return ResponseEntity.badRequest().body("Skill name is required");
+        }
         User updated = userService.addWantedSkill(id, skill);
         if (updated != null) {
             return ResponseEntity.ok(updated);
@@ -0,0 +1,17 @@
+package com.skillsharing.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class ConversationSummary {
+    private Long counterpartId;
+    private Long lastMessageId;
+    private Long lastSenderId;
+    private String lastMessagePreview;
+    private LocalDateTime lastTimestamp;
+    private long unreadCount;
+}
@@ -0,0 +1,15 @@
+package com.skillsharing.dto;
+
+import com.skillsharing.model.Message;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class MessageSearchPage {
+    private Long userId;
+    private List<Message> messages; // newest first
+    private Long nextCursor; // pass back as cursor for the next page; null on the last page
+}
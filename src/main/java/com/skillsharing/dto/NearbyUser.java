@@ -0,0 +1,12 @@
+package com.skillsharing.dto;
+
+import com.skillsharing.model.UserDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class NearbyUser {
+    private UserDTO user;
+    private double distanceKm;
+}
@@ -0,0 +1,19 @@
+package com.skillsharing.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class ReplicationStatus {
+    private String role;
+    private Long head; // primary: next change log offset
+    private Map<String, Long> replicas; // primary: replica address -> next offset sent
+    private Boolean connected; // replica: connected to the primary
+    private Long appliedOffset; // replica: next offset to apply
+    private Long primaryHead;
+    private Long lagRecords;
+    private Long lagMs;
+}
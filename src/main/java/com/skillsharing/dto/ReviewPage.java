@@ -0,0 +1,21 @@
+package com.skillsharing.dto;
+
+import com.skillsharing.model.Review;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class ReviewPage {
+    private Long userId;
+    private List<Review> reviews; // newest first
+    private Long nextCursor; // pass back as cursor for the next page; null on the last page
+    private double averageRating;
+    private long totalReviews;
+    private Map<Integer, Long> histogram; // stars -> number of reviews
+    private double recentAverage;
+    private int recentReviews; // size of the window recentAverage covers
+}
@@ -0,0 +1,16 @@
+package com.skillsharing.dto;
+
+import com.skillsharing.model.UserDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class SkillMatch {
+    private UserDTO teacher;
+    private double score;
+    private List<String> matchedSkills;   // learner's wanted skills the teacher offers
+    private List<String> exchangeSkills;  // learner's offered skills the teacher wants
+}
@@ -0,0 +1,13 @@
+package com.skillsharing.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SkillSuggestion {
+    private String name; // canonical skill name
+    private int distance; // edits from the query; 0 for exact and substring matches
+    private int teachers; // users offering the skill
+    private int learners; // users wanting the skill
+}
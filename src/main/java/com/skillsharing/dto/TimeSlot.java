@@ -0,0 +1,13 @@
+package com.skillsharing.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.OffsetDateTime;
+
+@Data
+@AllArgsConstructor
+public class TimeSlot {
+    private OffsetDateTime start;
+    private OffsetDateTime end;
+}
@@ -0,0 +1,14 @@
+package com.skillsharing.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class UnreadCountsResponse {
+    private Long userId;
+    private long total;
+    private Map<Long, Long> bySender; // senderId -> unread messages from that sender
+}
@@ -0,0 +1,16 @@
+package com.skillsharing.dto;
+
+import com.skillsharing.model.UserDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class UserBrowseResponse {
+    private long total; // users matching every filter
+    private List<UserDTO> users;
+    private Map<String, Map<String, Long>> facets; // facet -> value -> matching users, other filters applied
+}
@@ -0,0 +1,24 @@
+package com.skillsharing.dto;
+
+import com.skillsharing.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The UserDTO fields a list needs to show who someone is, without their skills or availability
+ */
+@Data
+@AllArgsConstructor
+public class UserSummary {
+    private Long id;
+    private String username;
+    private String fullName;
+    private String location;
+    private double rating;
+    private int totalReviews;
+
+    public UserSummary(User user) {
+        this(user.getId(), user.getUsername(), user.getFullName(), user.getLocation(),
+                user.getRating(), user.getTotalReviews());
+    }
+}
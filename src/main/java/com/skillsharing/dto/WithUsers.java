@@ -0,0 +1,14 @@
+package com.skillsharing.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class WithUsers<T> {
+    private List<T> items;
+    private Map<Long, UserSummary> users; // userId -> summary, for every user the items reference
+}
@@ -0,0 +1,44 @@
+package com.skillsharing.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A repository save or delete, numbered in publication order. Entity is the instance saved, or
+ * the one removed on deletes. No before image is carried: services update stored instances in
+ * place, so the old field values are gone by the time of the save, and subscribers needing them
+ * keep their own copy, as the indexes do.
+ */
+@Getter
+@AllArgsConstructor
+public class ChangeEvent {
+    public static final String USERS = "users";
+    public static final String SKILLS = "skills";
+    public static final String SESSIONS = "sessions";
+    public static final String SESSION_REQUESTS = "session-requests";
+    public static final String MESSAGES = "messages";
+    public static final String REVIEWS = "reviews";
+
+    public static final String SAVE = "save";
+    public static final String DELETE = "delete";
+
+    private final long sequence;
+    private final long timestamp; // epoch milliseconds
+    private final String store;
+    private final String type;
+    private final Long id;
+    private final boolean created; // nothing was stored under the ID before this save
+    private final Object entity;
+
+    public boolean isCreate() {
+        return SAVE.equals(type) && created;
+    }
+
+    public boolean isDelete() {
+        return DELETE.equals(type);
+    }
+
+    public boolean isFor(String store) {
+        return this.store.equals(store);
+    }
+}
@@ -0,0 +1,355 @@
+package com.skillsharing.events;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Publishes every repository save and delete to subscribers, so indexes and caches follow the
+ * stores without hooks in each service.
+ *
+ * <p>Synchronous subscribers run on the saving thread right after the store is written, in
+ * subscription order, so they see each entity's changes in the order they were made.
+ * Asynchronous subscribers each follow a ring buffer on their own thread, in sequence order:
+ * publishers claim a sequence with one atomic increment and write its slot, consumers poll
+ * their next slot, and no locks are taken. A consumer that finds nothing after spinning and
+ * yielding parks until a publisher stores an event and unparks it. A publisher only waits when
+ * the slowest consumer is a full ring behind, so async subscribers must not save to repositories
+ * themselves. Code holding locks other requests need publishes inside deferAsyncDelivery, which
+ * stores its events in the ring, waiting if need be, only once it has let go of them.
+ *
+ * <p>That wait is bounded by events.publish-timeout-ms, so a stalled async subscriber cannot
+ * stall every save. Past it the subscriber is marked lagging and publishers overwrite its slots
+ * without waiting for it. When it resumes and finds its next slot overwritten, it skips ahead to
+ * the event there, running its overrun handler first so it can recover from what it missed.
+ */
+@Component
+public class ChangeEventBus implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeEventBus.class);
+
+    private static final int SPINS_BEFORE_YIELD = 100;
+    private static final int YIELDS_BEFORE_PARK = 100;
+    private static final long PARK_NANOS = 50_000;
+
+    // Events published inside deferAsyncDelivery on this thread, not yet stored in the ring
+    private static final ThreadLocal<List<ChangeEvent>> deferred = new ThreadLocal<>();
+
+    @Value("${events.ring-size:8192}")
+    private int requestedRingSize;
+
+    @Value("${events.publish-timeout-ms:1000}")
+    private long publishTimeoutMs;
+
+    private AtomicReferenceArray<ChangeEvent> ring;
+    private int mask;
+    private final AtomicLong cursor = new AtomicLong();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder publishTimeouts = new LongAdder();
+    private final List<Subscriber> syncSubscribers = new ArrayList<>();
+    private final List<AsyncSubscriber> asyncSubscribers = new ArrayList<>();
+    // Copy-on-write snapshots of the lists above, read by publishers without locking
+    private volatile Subscriber[] syncView = new Subscriber[0];
+    private volatile AsyncSubscriber[] asyncView = new AsyncSubscriber[0];
+    private volatile boolean running = true;
+    private MeterRegistry registry;
+
+    @PostConstruct
+    public void init() {
+        int size = Integer.highestOneBit(Math.max(2, requestedRingSize - 1)) << 1;
+        ring = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (AsyncSubscriber subscriber : asyncView) {
+            LockSupport.unpark(subscriber.thread);
+        }
+    }
+
+    public void publishSave(String store, Long id, boolean created, Object entity) {
+        publish(store, ChangeEvent.SAVE, id, created, entity);
+    }
+
+    public void publishDelete(String store, Long id, Object removed) {
+        publish(store, ChangeEvent.DELETE, id, false, removed);
+    }
+
+    /**
+     * Runs the action, holding back async delivery of the changes it publishes until it returns.
+     * Synchronous subscribers still see each change at once, and sequence numbers, hence async
+     * order, are still taken at publication; only the ring store, which can wait for a slow
+     * subscriber, moves after the action. Async subscribers wait at a held-back event meanwhile.
+     */
+    public <T> T deferAsyncDelivery(Supplier<T> action) {
+        if (deferred.get() != null) {
+            return action.get();
+        }
+        List<ChangeEvent> events = new ArrayList<>();
+        deferred.set(events);
+        try {
+            return action.get();
+        } finally {
+            // Also after a failure: consumers cannot pass a claimed sequence that is never stored
+            deferred.remove();
+            events.forEach(this::deliverAsync);
+        }
+    }
+
+    /**
+     * Calls the handler on the publishing thread for every later change
+     */
+    public synchronized void subscribe(String name, Consumer<ChangeEvent> handler) {
+        Subscriber subscriber = new Subscriber(name, handler);
+        syncSubscribers.add(subscriber);
+        syncView = syncSubscribers.toArray(new Subscriber[0]);
+        bindFailures(subscriber);
+    }
+
+    /**
+     * Calls the handler on a dedicated thread for every later change, in publication order.
+     * When the subscriber falls so far behind that publishers overwrote events it had not
+     * handled yet, onOverrun runs on that thread before the next event it does get.
+     */
+    public synchronized void subscribeAsync(String name, Consumer<ChangeEvent> handler, Runnable onOverrun) {
+        AsyncSubscriber subscriber = new AsyncSubscriber(name, handler, onOverrun, cursor.get());
+        asyncSubscribers.add(subscriber);
+        asyncView = asyncSubscribers.toArray(new AsyncSubscriber[0]);
+        bindFailures(subscriber);
+        bindLag(subscriber);
+        subscriber.thread.start();
+    }
+
+    @Override
+    public synchronized void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        FunctionCounter.builder("events.published", published, LongAdder::sum).register(registry);
+        FunctionCounter.builder("events.publish.timeouts", publishTimeouts, LongAdder::sum).register(registry);
+        Gauge.builder("events.ring.size", ring, AtomicReferenceArray::length).register(registry);
+        syncSubscribers.forEach(this::bindFailures);
+        asyncSubscribers.forEach(subscriber -> {
+            bindFailures(subscriber);
+            bindLag(subscriber);
+        });
+    }
+
+    private void publish(String store, String type, Long id, boolean created, Object entity) {
+        long sequence = cursor.getAndIncrement();
+        ChangeEvent event = new ChangeEvent(sequence, System.currentTimeMillis(), store, type, id, created, entity);
+        for (Subscriber subscriber : syncView) {
+            subscriber.deliver(event);
+        }
+        List<ChangeEvent> held = deferred.get();
+        if (held != null) {
+            held.add(event);
+        } else {
+            deliverAsync(event);
+        }
+    }
+
+    private void deliverAsync(ChangeEvent event) {
+        AsyncSubscriber[] consumers = asyncView;
+        if (consumers.length > 0) {
+            awaitCapacity(event.getSequence(), consumers);
+        }
+        store(event);
+        published.increment();
+        for (AsyncSubscriber consumer : consumers) {
+            if (consumer.parked) {
+                consumer.parked = false;
+                LockSupport.unpark(consumer.thread);
+            }
+        }
+    }
+
+    /**
+     * Waits until every consumer that is not lagging is past the event a ring earlier that this
+     * slot still holds, and marks those still behind it as lagging once the timeout is up
+     */
+    private void awaitCapacity(long sequence, AsyncSubscriber[] consumers) {
+        long wrapPoint = sequence - ring.length();
+        if (wrapPoint < minimumNext(consumers)) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(publishTimeoutMs);
+        int idle = 0;
+        while (running && wrapPoint >= minimumNext(consumers)) {
+            if (System.nanoTime() - deadline > 0) {
+                markLagging(wrapPoint, consumers);
+                return;
+            }
+            idle = idle(idle);
+        }
+    }
+
+    private void markLagging(long wrapPoint, AsyncSubscriber[] consumers) {
+        publishTimeouts.increment();
+        for (AsyncSubscriber consumer : consumers) {
+            long next = consumer.next.get();
+            if (next <= wrapPoint && !consumer.lagging) {
+                consumer.lagging = true;
+                logger.warn("event=change_event.subscriber_lagging subscriber={} next={} cursor={} waitedMs={}",
+                        consumer.name, next, cursor.get(), publishTimeoutMs);
+            }
+        }
+    }
+
+    // Past a timeout, a publisher that claimed its sequence earlier can arrive after one a ring later
+    private void store(ChangeEvent event) {
+        int slot = (int) event.getSequence() & mask;
+        ChangeEvent current;
+        do {
+            current = ring.get(slot);
+            if (current != null && current.getSequence() > event.getSequence()) {
+                return;
+            }
+        } while (!ring.compareAndSet(slot, current, event));
+    }
+
+    private static long minimumNext(AsyncSubscriber[] consumers) {
+        long minimum = Long.MAX_VALUE;
+        for (AsyncSubscriber consumer : consumers) {
+            if (!consumer.lagging) {
+                minimum = Math.min(minimum, consumer.next.get());
+            }
+        }
+        return minimum;
+    }
+
+    // Busy-spin briefly, then yield, then park, while a publisher waits for a consumer to move on
+    private static int idle(int idle) {
+        if (idle >= SPINS_BEFORE_YIELD + YIELDS_BEFORE_PARK) {
+            LockSupport.parkNanos(PARK_NANOS);
+        } else if (idle >= SPINS_BEFORE_YIELD) {
+            Thread.yield();
+        }
+        return idle + 1;
+    }
+
+    private void bindFailures(Subscriber subscriber) {
+        if (registry != null) {
+            FunctionCounter.builder("events.subscriber.failures", subscriber.failures, LongAdder::sum)
+                    .tag("subscriber", subscriber.name).register(registry);
+        }
+    }
+
+    private void bindLag(AsyncSubscriber subscriber) {
+        if (registry != null) {
+            Gauge.builder("events.subscriber.lag", subscriber, s -> cursor.get() - s.next.get())
+                    .tag("subscriber", subscriber.name).register(registry);
+            FunctionCounter.builder("events.subscriber.overruns", subscriber.overruns, LongAdder::sum)
+                    .tag("subscriber", subscriber.name).register(registry);
+        }
+    }
+
+    private static class Subscriber {
+        final String name;
+        final Consumer<ChangeEvent> handler;
+        final LongAdder failures = new LongAdder();
+
+        Subscriber(String name, Consumer<ChangeEvent> handler) {
+            this.name = name;
+            this.handler = handler;
+        }
+
+        // A failing subscriber must not fail the save or stall the others
+        void deliver(ChangeEvent event) {
+            try {
+                handler.accept(event);
+            } catch (RuntimeException e) {
+                failures.increment();
+                logger.error("event=change_event.subscriber_failed subscriber={} store={} id={} sequence={}",
+                        name, event.getStore(), event.getId(), event.getSequence(), e);
+            }
+        }
+    }
+
+    private final class AsyncSubscriber extends Subscriber implements Runnable {
+        final Runnable onOverrun;
+        final LongAdder overruns = new LongAdder();
+        // Sequence of the next event to handle; everything before it is done
+        final AtomicLong next;
+        final Thread thread;
+        // Set by a publisher that gave up waiting; publishers then no longer wait for this subscriber
+        volatile boolean lagging;
+        // Set before parking for want of events; the next publisher to store one unparks the thread
+        volatile boolean parked;
+
+        AsyncSubscriber(String name, Consumer<ChangeEvent> handler, Runnable onOverrun, long start) {
+            super(name, handler);
+            this.onOverrun = onOverrun;
+            this.next = new AtomicLong(start);
+            this.thread = new Thread(this, "change-events-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long sequence = next.get();
+            int idle = 0;
+            while (running) {
+                ChangeEvent event = ring.get((int) sequence & mask);
+                if (event == null || event.getSequence() < sequence) {
+                    // Caught up, so publishers can wait for this subscriber again
+                    lagging = false;
+                    idle = awaitEvent(sequence, idle);
+                    continue;
+                }
+                // Overwritten while this subscriber was lagging, or before it was registered
+                if (event.getSequence() > sequence) {
+                    overrun(event.getSequence() - sequence);
+                    sequence = event.getSequence();
+                    lagging = false;
+                }
+                deliver(event);
+                next.lazySet(++sequence);
+                idle = 0;
+            }
+        }
+
+        // Spins and yields like a waiting publisher, then parks with no timeout instead of polling
+        private int awaitEvent(long sequence, int idle) {
+            if (idle < SPINS_BEFORE_YIELD + YIELDS_BEFORE_PARK) {
+                return idle(idle);
+            }
+            parked = true;
+            // Checked again after announcing the park, so a store racing with it is never missed
+            ChangeEvent event = ring.get((int) sequence & mask);
+            if (running && (event == null || event.getSequence() < sequence)) {
+                LockSupport.park(this);
+            }
+            parked = false;
+            return idle;
+        }
+
+        private void overrun(long missed) {
+            overruns.increment();
+            logger.warn("event=change_event.overrun subscriber={} missed={}", name, missed);
+            try {
+                onOverrun.run();
+            } catch (RuntimeException e) {
+                failures.increment();
+                logger.error("event=change_event.overrun_handler_failed subscriber={}", name, e);
+            }
+        }
+    }
+}
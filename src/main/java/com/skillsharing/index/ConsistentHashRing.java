@@ -0,0 +1,85 @@
+package com.skillsharing.index;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Immutable consistent-hash ring of named nodes, each placed at many virtual points so keys
+ * spread evenly. Adding or removing a node only moves the keys between its points and their
+ * predecessors, about 1/N of them; changes return a new ring so lookups never lock.
+ */
+public final class ConsistentHashRing {
+
+    private final int virtualNodes;
+    private final NavigableMap<Long, String> points;
+    private final Set<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+        this.nodes = Collections.unmodifiableSet(new LinkedHashSet<>(nodes));
+        TreeMap<Long, String> placed = new TreeMap<>();
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                placed.put(hash(node + '#' + i), node);
+            }
+        }
+        this.points = Collections.unmodifiableNavigableMap(placed);
+    }
+
+    public ConsistentHashRing withNode(String node) {
+        Set<String> grown = new LinkedHashSet<>(nodes);
+        grown.add(node);
+        return new ConsistentHashRing(grown, virtualNodes);
+    }
+
+    public ConsistentHashRing withoutNode(String node) {
+        Set<String> shrunk = new LinkedHashSet<>(nodes);
+        shrunk.remove(node);
+        return new ConsistentHashRing(shrunk, virtualNodes);
+    }
+
+    public Set<String> nodes() {
+        return nodes;
+    }
+
+    /**
+     * Node owning the key: the first point at or after the key's hash, wrapping around
+     */
+    public String ownerOf(long key) {
+        if (points.isEmpty()) {
+            throw new IllegalStateException("Hash ring has no nodes");
+        }
+        Map.Entry<Long, String> point = points.ceilingEntry(mix(key));
+        return point != null ? point.getValue() : points.firstEntry().getValue();
+    }
+
+    /**
+     * Order-independent key of the conversation between two users
+     */
+    public static long conversationKey(long firstUserId, long secondUserId) {
+        long low = Math.min(firstUserId, secondUserId);
+        long high = Math.max(firstUserId, secondUserId);
+        return mix(low) ^ Long.rotateLeft(mix(high), 31);
+    }
+
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * 64-bit finalizer, so sequential and time-ordered IDs land all over the ring
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
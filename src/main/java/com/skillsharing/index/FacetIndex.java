@@ -0,0 +1,249 @@
+package com.skillsharing.index;
+
+import com.skillsharing.model.User;
+import com.skillsharing.model.UserSkill;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Roaring bitmaps of users per facet value: offered skill category, offered skill level,
+ * rating bucket and location. Filters are bitmap unions within a facet and intersections
+ * across facets, and facet counts are intersection cardinalities, so browsing never visits
+ * users outside the requested page.
+ *
+ * <p>Users are numbered with dense ordinals so the 32-bit bitmaps stay compact whatever the
+ * user IDs look like. Updates diff the user's previous values and only touch changed bitmaps.
+ */
+@Component
+public class FacetIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String LEVEL = "level";
+    public static final String RATING = "rating";
+    public static final String LOCATION = "location";
+    public static final String UNRATED = "unrated";
+
+    private static final String[] LEVEL_NAMES = {null, "beginner", "intermediate", "expert"};
+
+    private final Map<String, Map<String, RoaringBitmap>> facets = new LinkedHashMap<>();
+    private final Map<Long, Map<String, Set<String>>> valuesByUser = new HashMap<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final List<Long> userIds = new ArrayList<>();
+    private final RoaringBitmap all = new RoaringBitmap();
+
+    // Profile and skill changes are rare next to browsing, so readers share the lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public FacetIndex() {
+        for (String facet : Arrays.asList(CATEGORY, LEVEL, RATING, LOCATION)) {
+            facets.put(facet, new HashMap<>());
+        }
+    }
+
+    /**
+     * Brings the user's bitmaps in line with their current profile, skills and rating
+     */
+    public void update(User user) {
+        Map<String, Set<String>> current = valuesOf(user);
+        lock.readLock().lock();
+        try {
+            if (current.equals(valuesByUser.get(user.getId()))) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Re-read under the lock so a slower concurrent update can't apply an older snapshot
+            current = valuesOf(user);
+            int ordinal = ordinalOf(user.getId());
+            Map<String, Set<String>> previous = valuesByUser.getOrDefault(user.getId(), Collections.emptyMap());
+            for (Map.Entry<String, Map<String, RoaringBitmap>> facet : facets.entrySet()) {
+                Set<String> before = previous.getOrDefault(facet.getKey(), Collections.emptySet());
+                Set<String> after = current.getOrDefault(facet.getKey(), Collections.emptySet());
+                for (String value : before) {
+                    if (!after.contains(value)) {
+                        RoaringBitmap bitmap = facet.getValue().get(value);
+                        bitmap.remove(ordinal);
+                        if (bitmap.isEmpty()) {
+                            facet.getValue().remove(value);
+                        }
+                    }
+                }
+                for (String value : after) {
+                    if (!before.contains(value)) {
+                        facet.getValue().computeIfAbsent(value, v -> new RoaringBitmap()).add(ordinal);
+                    }
+                }
+            }
+            valuesByUser.put(user.getId(), current);
+            all.add(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long userId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(userId);
+            Map<String, Set<String>> previous = valuesByUser.remove(userId);
+            if (ordinal == null || previous == null) {
+                return;
+            }
+            previous.forEach((facet, values) -> values.forEach(value -> {
+                RoaringBitmap bitmap = facets.get(facet).get(value);
+                bitmap.remove(ordinal);
+                if (bitmap.isEmpty()) {
+                    facets.get(facet).remove(value);
+                }
+            }));
+            all.remove(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Users matching any of the given values of every filtered facet, a page of their IDs in
+     * index order, and per-facet counts of at most maxValues values. Each facet's counts apply
+     * the other facets' filters but not its own, so alternatives stay visible.
+     */
+    public Result query(Map<String, List<String>> filters, int offset, int limit, int maxValues) {
+        lock.readLock().lock();
+        try {
+            Map<String, RoaringBitmap> matchesByFacet = new HashMap<>();
+            for (Map.Entry<String, List<String>> filter : filters.entrySet()) {
+                Map<String, RoaringBitmap> values = facets.get(filter.getKey());
+                if (values == null || filter.getValue() == null || filter.getValue().isEmpty()) {
+                    continue;
+                }
+                RoaringBitmap matches = new RoaringBitmap();
+                for (String value : filter.getValue()) {
+                    RoaringBitmap bitmap = values.get(normalize(value));
+                    if (bitmap != null) {
+                        matches.or(bitmap);
+                    }
+                }
+                matchesByFacet.put(filter.getKey(), matches);
+            }
+
+            RoaringBitmap result = intersectExcept(matchesByFacet, null);
+            List<Long> page = new ArrayList<>(limit);
+            if (offset < result.getCardinality()) {
+                PeekableIntIterator iterator = result.getIntIterator();
+                iterator.advanceIfNeeded(result.select(offset));
+                while (page.size() < limit && iterator.hasNext()) {
+                    page.add(userIds.get(iterator.next()));
+                }
+            }
+
+            Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+            for (Map.Entry<String, Map<String, RoaringBitmap>> facet : facets.entrySet()) {
+                RoaringBitmap base = intersectExcept(matchesByFacet, facet.getKey());
+                List<Map.Entry<String, Long>> valueCounts = new ArrayList<>();
+                for (Map.Entry<String, RoaringBitmap> value : facet.getValue().entrySet()) {
+                    long count = RoaringBitmap.andCardinality(base, value.getValue());
+                    if (count > 0) {
+                        valueCounts.add(new AbstractMap.SimpleEntry<>(value.getKey(), count));
+                    }
+                }
+                valueCounts.sort(Map.Entry.<String, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()));
+                Map<String, Long> top = new LinkedHashMap<>();
+                for (Map.Entry<String, Long> valueCount : valueCounts.subList(0, Math.min(maxValues, valueCounts.size()))) {
+                    top.put(valueCount.getKey(), valueCount.getValue());
+                }
+                counts.put(facet.getKey(), top);
+            }
+            return new Result(result.getLongCardinality(), page, counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rating bucket of an average: its whole number of stars, from 1 to 5
+     */
+    public static String ratingBucket(double rating) {
+        return String.valueOf(Math.max(1, Math.min(5, (int) Math.floor(rating))));
+    }
+
+    private RoaringBitmap intersectExcept(Map<String, RoaringBitmap> matchesByFacet, String excluded) {
+        RoaringBitmap result = all.clone();
+        for (Map.Entry<String, RoaringBitmap> matches : matchesByFacet.entrySet()) {
+            if (!matches.getKey().equals(excluded)) {
+                result.and(matches.getValue());
+            }
+        }
+        return result;
+    }
+
+    private int ordinalOf(Long userId) {
+        Integer ordinal = ordinals.get(userId);
+        if (ordinal == null) {
+            ordinal = userIds.size();
+            userIds.add(userId);
+            ordinals.put(userId, ordinal);
+        }
+        return ordinal;
+    }
+
+    private static Map<String, Set<String>> valuesOf(User user) {
+        Map<String, Set<String>> values = new HashMap<>();
+        if (user.getOfferedSkills() != null) {
+            for (UserSkill skill : user.getOfferedSkills()) {
+                addValue(values, CATEGORY, normalize(skill.getCategory()));
+                int rank = SkillIndex.levelRank(skill.getLevel());
+                if (rank > 0) {
+                    addValue(values, LEVEL, LEVEL_NAMES[rank]);
+                }
+            }
+        }
+        long reviews = user.getRatingStats().count();
+        addValue(values, RATING, reviews > 0 ? ratingBucket(user.getRatingStats().average()) : UNRATED);
+        addValue(values, LOCATION, normalize(user.getLocation()));
+        return values;
+    }
+
+    private static void addValue(Map<String, Set<String>> values, String facet, String value) {
+        if (!value.isEmpty()) {
+            values.computeIfAbsent(facet, f -> new HashSet<>()).add(value);
+        }
+    }
+
+    private static String normalize(String value) {
+        return SkillIndex.canonicalName(value);
+    }
+
+    public static final class Result {
+        private final long total;
+        private final List<Long> userIds;
+        private final Map<String, Map<String, Long>> counts;
+
+        private Result(long total, List<Long> userIds, Map<String, Map<String, Long>> counts) {
+            this.total = total;
+            this.userIds = userIds;
+            this.counts = counts;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public List<Long> getUserIds() {
+            return userIds;
+        }
+
+        public Map<String, Map<String, Long>> getCounts() {
+            return counts;
+        }
+    }
+}
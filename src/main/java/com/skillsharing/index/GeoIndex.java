@@ -0,0 +1,177 @@
+package com.skillsharing.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Geohash buckets of user coordinates at several precisions. A radius query picks the precision
+ * whose cells are about half the radius, so it visits a handful of buckets around the point
+ * and checks exact distances only for the users in them.
+ */
+@Component
+public class GeoIndex {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final int MIN_PRECISION = 2;
+    private static final int MAX_PRECISION = 6;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = 111.32;
+
+    // buckets[p - MIN_PRECISION]: geohash of length p -> user IDs in that cell
+    private final List<Map<String, Set<Long>>> buckets = new ArrayList<>();
+    private final Map<Long, double[]> points = new ConcurrentHashMap<>();
+    private final StripedLocks locks = new StripedLocks(64);
+
+    public GeoIndex() {
+        for (int p = MIN_PRECISION; p <= MAX_PRECISION; p++) {
+            buckets.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    public static boolean isValid(Double latitude, Double longitude) {
+        return latitude != null && longitude != null
+                && latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+
+    /**
+     * Moves the user to the given point, or drops them from the index when the point is missing
+     */
+    public void update(Long userId, Double latitude, Double longitude) {
+        synchronized (locks.lockFor(userId)) {
+            double[] previous = points.remove(userId);
+            if (previous != null) {
+                String hash = encode(previous[0], previous[1], MAX_PRECISION);
+                for (int p = MIN_PRECISION; p <= MAX_PRECISION; p++) {
+                    bucketsAt(p).computeIfPresent(hash.substring(0, p), (key, users) -> {
+                        users.remove(userId);
+                        return users.isEmpty() ? null : users;
+                    });
+                }
+            }
+            if (!isValid(latitude, longitude)) {
+                return;
+            }
+            String hash = encode(latitude, longitude, MAX_PRECISION);
+            for (int p = MIN_PRECISION; p <= MAX_PRECISION; p++) {
+                bucketsAt(p).computeIfAbsent(hash.substring(0, p), key -> ConcurrentHashMap.newKeySet()).add(userId);
+            }
+            points.put(userId, new double[]{latitude, longitude});
+        }
+    }
+
+    public void remove(Long userId) {
+        update(userId, null, null);
+    }
+
+    /**
+     * Users within radiusKm of the point, mapped to their distance in km
+     */
+    public Map<Long, Double> findWithin(double latitude, double longitude, double radiusKm) {
+        Map<Long, Double> found = new HashMap<>();
+        int precision = precisionFor(radiusKm);
+        double[] cell = cellSize(precision);
+        double angularRadius = radiusKm / EARTH_RADIUS_KM;
+        double latRadius = Math.toDegrees(angularRadius);
+        double minLat = Math.max(-90, latitude - latRadius);
+        double maxLat = Math.min(90, latitude + latRadius);
+        // Exact longitude half-width of the circle's bounding box; a box reaching a pole spans all longitudes
+        double lonRadius = minLat <= -90 || maxLat >= 90 ? 180
+                : Math.toDegrees(Math.asin(Math.min(1, Math.sin(angularRadius) / Math.cos(Math.toRadians(latitude)))));
+
+        Set<String> visited = new HashSet<>();
+        // Step half a cell so no cell the box touches is skipped; the set removes repeats
+        for (double lat = minLat; lat <= maxLat + cell[0] / 2; lat += cell[0] / 2) {
+            for (double lon = longitude - lonRadius; lon <= longitude + lonRadius + cell[1] / 2; lon += cell[1] / 2) {
+                String hash = encode(Math.min(lat, 90), wrapLongitude(lon), precision);
+                if (!visited.add(hash)) {
+                    continue;
+                }
+                Set<Long> users = bucketsAt(precision).get(hash);
+                if (users == null) {
+                    continue;
+                }
+                for (Long userId : users) {
+                    Double distance = distanceTo(userId, latitude, longitude);
+                    if (distance != null && distance <= radiusKm) {
+                        found.put(userId, distance);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Great-circle distance from the user's indexed point, or null if they have none
+     */
+    public Double distanceTo(Long userId, double latitude, double longitude) {
+        double[] point = points.get(userId);
+        return point != null ? haversineKm(latitude, longitude, point[0], point[1]) : null;
+    }
+
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    static String encode(double latitude, double longitude, int precision) {
+        double[] latRange = {-90, 90};
+        double[] lonRange = {-180, 180};
+        StringBuilder hash = new StringBuilder(precision);
+        boolean even = true;
+        int bit = 0;
+        int ch = 0;
+        while (hash.length() < precision) {
+            double[] range = even ? lonRange : latRange;
+            double value = even ? longitude : latitude;
+            double mid = (range[0] + range[1]) / 2;
+            ch <<= 1;
+            if (value >= mid) {
+                ch |= 1;
+                range[0] = mid;
+            } else {
+                range[1] = mid;
+            }
+            even = !even;
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Cell height and width in degrees for a geohash length
+     */
+    private static double[] cellSize(int precision) {
+        int bits = precision * 5;
+        int lonBits = (bits + 1) / 2;
+        int latBits = bits / 2;
+        return new double[]{180.0 / (1L << latBits), 360.0 / (1L << lonBits)};
+    }
+
+    private static int precisionFor(double radiusKm) {
+        for (int p = MAX_PRECISION; p > MIN_PRECISION; p--) {
+            if (cellSize(p)[0] * KM_PER_DEGREE >= radiusKm / 2) {
+                return p;
+            }
+        }
+        return MIN_PRECISION;
+    }
+
+    private static double wrapLongitude(double longitude) {
+        return ((longitude + 180) % 360 + 360) % 360 - 180;
+    }
+
+    private Map<String, Set<Long>> bucketsAt(int precision) {
+        return buckets.get(precision - MIN_PRECISION);
+    }
+}
@@ -0,0 +1,268 @@
+package com.skillsharing.index;
+
+import com.skillsharing.model.Message;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user inverted index over message content. Each message is indexed into the partitions of
+ * both its sender and receiver, under its content terms and a term for the counterpart, so a
+ * search never looks at other users' messages and "with" filtering is one more intersection.
+ *
+ * <p>Message IDs only grow, so postings are stored as varint-encoded gaps between ascending IDs,
+ * a few bytes per posting instead of a boxed Long and its map entry. Every BLOCK_SIZE postings
+ * a skip entry records where the block starts, so a search decodes the rarest term one block at
+ * a time from the newest, starting at beforeId, stops once the page is full, and probes the
+ * other terms by decoding only the block that could hold each candidate.
+ */
+@Component
+public class MessageIndex {
+
+    private final Map<Long, Partition> partitions = new ConcurrentHashMap<>();
+
+    public void index(Message message) {
+        Set<String> terms = new HashSet<>(TextAnalyzer.analyze(message.getContent()));
+        if (terms.isEmpty()) {
+            return;
+        }
+        partition(message.getSenderId()).add(message.getId(), terms, message.getReceiverId());
+        if (!message.getReceiverId().equals(message.getSenderId())) {
+            partition(message.getReceiverId()).add(message.getId(), terms, message.getSenderId());
+        }
+    }
+
+    /**
+     * IDs of the user's messages containing every query term, newest first, strictly older than
+     * beforeId when given, optionally only those exchanged with counterpartId
+     */
+    public List<Long> search(Long userId, String query, Long counterpartId, Long beforeId, int limit) {
+        Partition partition = partitions.get(userId);
+        Set<String> terms = new LinkedHashSet<>(TextAnalyzer.analyze(query));
+        if (partition == null || terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (counterpartId != null) {
+            terms.add(counterpartTerm(counterpartId));
+        }
+        return partition.search(terms, beforeId != null ? beforeId : Long.MAX_VALUE, limit);
+    }
+
+    private Partition partition(Long userId) {
+        return partitions.computeIfAbsent(userId, id -> new Partition());
+    }
+
+    // Not a possible analyzer output, so it can't collide with content terms
+    private static String counterpartTerm(Long userId) {
+        return "\u0000with:" + userId;
+    }
+
+    private static final class Partition {
+        private final Map<String, PostingList> postings = new HashMap<>();
+
+        synchronized void add(long messageId, Set<String> terms, Long counterpartId) {
+            for (String term : terms) {
+                postings.computeIfAbsent(term, t -> new PostingList()).add(messageId);
+            }
+            postings.computeIfAbsent(counterpartTerm(counterpartId), t -> new PostingList()).add(messageId);
+        }
+
+        synchronized List<Long> search(Set<String> terms, long beforeId, int limit) {
+            List<PostingList> lists = new ArrayList<>();
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) {
+                    return Collections.emptyList();
+                }
+                lists.add(list);
+            }
+            // Walk the rarest term newest-first and probe the others
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            PostingList rarest = lists.get(0);
+            List<Probe> others = new ArrayList<>();
+            for (PostingList list : lists.subList(1, lists.size())) {
+                others.add(new Probe(list));
+            }
+            List<Long> hits = new ArrayList<>();
+            long[] candidates = new long[PostingList.BLOCK_SIZE];
+            // Later blocks hold only IDs above beforeId
+            for (int block = rarest.blockOf(beforeId); block >= 0 && hits.size() < limit; block--) {
+                int count = rarest.decodeBlock(block, candidates);
+                for (int i = count - 1; i >= 0 && hits.size() < limit; i--) {
+                    long id = candidates[i];
+                    if (id >= beforeId) {
+                        continue;
+                    }
+                    boolean inAll = true;
+                    for (Probe other : others) {
+                        if (!other.contains(id)) {
+                            inAll = false;
+                            break;
+                        }
+                    }
+                    if (inAll) {
+                        hits.add(id);
+                    }
+                }
+            }
+            return hits;
+        }
+    }
+
+    /**
+     * Membership tests against one posting list for descending candidates, keeping the last
+     * decoded block since consecutive candidates usually fall in it
+     */
+    private static final class Probe {
+        private final PostingList list;
+        private final long[] ids = new long[PostingList.BLOCK_SIZE];
+        private int block = -1;
+        private int count;
+
+        Probe(PostingList list) {
+            this.list = list;
+        }
+
+        boolean contains(long id) {
+            int candidateBlock = list.blockOf(id);
+            if (candidateBlock < 0) {
+                return false;
+            }
+            if (candidateBlock != block) {
+                count = list.decodeBlock(candidateBlock, ids);
+                block = candidateBlock;
+            }
+            return Arrays.binarySearch(ids, 0, count, id) >= 0;
+        }
+    }
+
+    /**
+     * Ascending message IDs as varint-encoded deltas from the previous ID, in blocks of
+     * BLOCK_SIZE that can be decoded on their own
+     */
+    static final class PostingList {
+        static final int BLOCK_SIZE = 128;
+
+        private byte[] bytes = new byte[4];
+        private int length;
+        private int size;
+        private long last;
+        // Per block, the ID before its first posting and the offset of that posting's delta
+        private long[] blockBases = new long[1];
+        private int[] blockOffsets = new int[1];
+
+        void add(long id) {
+            if (size > 0 && id <= last) {
+                // Concurrent sends can be indexed slightly out of ID order; re-encode in order
+                if (id != last) {
+                    insertOutOfOrder(id);
+                }
+                return;
+            }
+            if (size % BLOCK_SIZE == 0) {
+                startBlock();
+            }
+            append(id - last);
+            last = id;
+            size++;
+        }
+
+        /**
+         * The last block that can hold IDs below the given one, or -1 if there is none
+         */
+        int blockOf(long id) {
+            int low = 0;
+            int high = (size + BLOCK_SIZE - 1) / BLOCK_SIZE - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (blockBases[middle] < id) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return high;
+        }
+
+        /**
+         * Decodes one block into ids, returning how many postings it holds
+         */
+        int decodeBlock(int block, long[] ids) {
+            int count = Math.min(BLOCK_SIZE, size - block * BLOCK_SIZE);
+            long id = blockBases[block];
+            int position = blockOffsets[block];
+            for (int i = 0; i < count; i++) {
+                long delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[position++];
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id += delta;
+                ids[i] = id;
+            }
+            return count;
+        }
+
+        long[] decode() {
+            long[] ids = new long[size];
+            long id = 0;
+            int position = 0;
+            for (int i = 0; i < size; i++) {
+                long delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[position++];
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id += delta;
+                ids[i] = id;
+            }
+            return ids;
+        }
+
+        private void insertOutOfOrder(long id) {
+            long[] ids = decode();
+            int index = Arrays.binarySearch(ids, id);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -index - 1;
+            bytes = new byte[bytes.length];
+            blockBases = new long[blockBases.length];
+            blockOffsets = new int[blockOffsets.length];
+            length = 0;
+            size = 0;
+            last = 0;
+            for (int i = 0; i <= ids.length; i++) {
+                add(i < insertAt ? ids[i] : i == insertAt ? id : ids[i - 1]);
+            }
+        }
+
+        private void startBlock() {
+            int block = size / BLOCK_SIZE;
+            if (block == blockBases.length) {
+                blockBases = Arrays.copyOf(blockBases, block * 2);
+                blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+            }
+            blockBases[block] = last;
+            blockOffsets[block] = length;
+        }
+
+        private void append(long delta) {
+            if (length + 10 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + 10, bytes.length + (bytes.length >> 1)));
+            }
+            while ((delta & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            bytes[length++] = (byte) delta;
+        }
+    }
+}
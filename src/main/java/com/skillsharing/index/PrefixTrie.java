@@ -0,0 +1,147 @@
+package com.skillsharing.index;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Case-insensitive prefix trie of weighted terms for autocomplete. Every node keeps the highest
+ * weight below it, so a completion walks best-first and stops after the top K terms instead of
+ * visiting the whole subtree. Updates are serialized; lookups run lock-free and may briefly see
+ * a stale weight while an update is in flight.
+ */
+public class PrefixTrie {
+
+    private final Node root = new Node();
+
+    /**
+     * Adds the term or changes its weight; a weight of zero or less removes it
+     */
+    public synchronized void put(String term, int weight) {
+        if (weight <= 0) {
+            remove(term);
+            return;
+        }
+        String path = fold(term);
+        Deque<Node> visited = new ArrayDeque<>();
+        Node node = root;
+        visited.push(node);
+        for (int i = 0; i < path.length(); i++) {
+            node = node.children.computeIfAbsent(path.charAt(i), c -> new Node());
+            visited.push(node);
+        }
+        node.terms.put(term, weight);
+        refresh(visited);
+    }
+
+    public synchronized void remove(String term) {
+        String path = fold(term);
+        Deque<Node> visited = new ArrayDeque<>();
+        Node node = root;
+        visited.push(node);
+        for (int i = 0; i < path.length(); i++) {
+            node = node.children.get(path.charAt(i));
+            if (node == null) {
+                return;
+            }
+            visited.push(node);
+        }
+        if (node.terms.remove(term) == null) {
+            return;
+        }
+        // Prune nodes left with neither terms nor children
+        for (int i = path.length() - 1; i >= 0; i--) {
+            Node child = visited.pop();
+            if (!child.terms.isEmpty() || !child.children.isEmpty()) {
+                visited.push(child);
+                break;
+            }
+            visited.peek().children.remove(path.charAt(i));
+        }
+        refresh(visited);
+    }
+
+    /**
+     * Up to limit terms starting with the prefix, heaviest first, ties alphabetically
+     */
+    public List<String> complete(String prefix, int limit) {
+        String path = fold(prefix);
+        Node node = root;
+        for (int i = 0; i < path.length() && node != null; i++) {
+            node = node.children.get(path.charAt(i));
+        }
+        List<String> completions = new ArrayList<>();
+        if (node == null) {
+            return completions;
+        }
+        PriorityQueue<Candidate> pending = new PriorityQueue<>();
+        pending.add(new Candidate(node.maxWeight, path, path, node));
+        while (!pending.isEmpty() && completions.size() < limit) {
+            Candidate candidate = pending.poll();
+            if (candidate.node == null) {
+                completions.add(candidate.term);
+                continue;
+            }
+            candidate.node.terms.forEach((term, weight) -> pending.add(new Candidate(weight, candidate.path, term, null)));
+            candidate.node.children.forEach((c, child) ->
+                    pending.add(new Candidate(child.maxWeight, candidate.path + c, null, child)));
+        }
+        return completions;
+    }
+
+    /**
+     * Recomputes the subtree maximum of each visited node, deepest first
+     */
+    private static void refresh(Deque<Node> visited) {
+        for (Node node : visited) {
+            int max = 0;
+            for (int weight : node.terms.values()) {
+                max = Math.max(max, weight);
+            }
+            for (Node child : node.children.values()) {
+                max = Math.max(max, child.maxWeight);
+            }
+            node.maxWeight = max;
+        }
+    }
+
+    private static String fold(String term) {
+        return term.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new ConcurrentHashMap<>();
+        // Original spellings ending here, e.g. "Alice" and "alice"
+        private final Map<String, Integer> terms = new ConcurrentHashMap<>(1);
+        private volatile int maxWeight;
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+        private final int weight;
+        private final String path;
+        private final String term;
+        private final Node node; // null for a finished term
+
+        private Candidate(int weight, String path, String term, Node node) {
+            this.weight = weight;
+            this.path = path;
+            this.term = term;
+            this.node = node;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            if (weight != other.weight) {
+                return Integer.compare(other.weight, weight);
+            }
+            // Everything under a node sorts after its path, so equal weights come out alphabetically
+            int byPath = path.compareTo(other.path);
+            if (byPath != 0) {
+                return byPath;
+            }
+            if ((node == null) != (other.node == null)) {
+                return node == null ? -1 : 1;
+            }
+            return term != null ? term.compareTo(other.term) : 0;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.skillsharing.index;
+
+import com.skillsharing.dto.TimeSlot;
+import org.springframework.stereotype.Component;
+
+import java.time.*;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-user interval index of booked sessions and declared availability windows.
+ * Availability entries are either weekly ("MON 09:00-12:00", UTC) or dated
+ * ("2026-10-20T09:00:00Z/2026-10-20T12:00:00Z"); anything else is treated as free text and ignored.
+ */
+@Component
+public class ScheduleIndex {
+
+    private static final Pattern WEEKLY = Pattern.compile(
+            "(?i)^\\s*(mon|tue|wed|thu|fri|sat|sun)[a-z]*\\s+(\\d{1,2}:\\d{2})\\s*-\\s*(\\d{1,2}:\\d{2})\\s*$");
+
+    private final Map<Long, Schedule> schedules = new ConcurrentHashMap<>();
+
+    /**
+     * Replaces the user's declared availability
+     */
+    public void setAvailability(Long userId, List<String> availability) {
+        List<WeeklyWindow> weekly = new ArrayList<>();
+        List<long[]> dated = new ArrayList<>();
+        if (availability != null) {
+            for (String entry : availability) {
+                parseWindow(entry, weekly, dated);
+            }
+        }
+        schedule(userId).setAvailability(weekly, merge(dated));
+    }
+
+    /**
+     * Returns the ID of a session booked for the user that overlaps [start, start + minutes), if any
+     */
+    public Optional<Long> findConflict(Long userId, OffsetDateTime start, int minutes, Long ignoreSessionId) {
+        requirePositive(minutes);
+        Schedule schedule = schedules.get(userId);
+        if (schedule == null) {
+            return Optional.empty();
+        }
+        long from = start.toInstant().toEpochMilli();
+        return Optional.ofNullable(schedule.conflict(from, from + minutes * 60_000L, ignoreSessionId));
+    }
+
+    /**
+     * Books the session for the user, replacing its previous slot. Returns false, leaving the
+     * schedule unchanged, when the slot overlaps another booked session.
+     */
+    public boolean book(Long userId, Long sessionId, OffsetDateTime start, int minutes) {
+        requirePositive(minutes);
+        long from = start.toInstant().toEpochMilli();
+        return schedule(userId).book(sessionId, from, from + minutes * 60_000L);
+    }
+
+    public void release(Long userId, Long sessionId) {
+        Schedule schedule = schedules.get(userId);
+        if (schedule != null) {
+            schedule.release(sessionId);
+        }
+    }
+
+    /**
+     * Gaps of at least the given length inside the user's availability between from and to,
+     * after removing booked sessions
+     */
+    public List<TimeSlot> findFreeSlots(Long userId, OffsetDateTime from, OffsetDateTime to, int minutes) {
+        List<TimeSlot> slots = new ArrayList<>();
+        Schedule schedule = schedules.get(userId);
+        if (schedule == null) {
+            return slots;
+        }
+        long rangeStart = from.toInstant().toEpochMilli();
+        long rangeEnd = to.toInstant().toEpochMilli();
+        long minLength = minutes * 60_000L;
+
+        List<long[]> available;
+        List<long[]> booked;
+        synchronized (schedule) {
+            available = schedule.availableWithin(rangeStart, rangeEnd);
+            booked = schedule.bookedWithin(rangeStart, rangeEnd);
+        }
+
+        // Both lists are sorted and disjoint, so one merge pass subtracts the bookings
+        int next = 0;
+        for (long[] window : available) {
+            long cursor = window[0];
+            while (next < booked.size() && booked.get(next)[1] <= cursor) {
+                next++;
+            }
+            for (int i = next; i < booked.size() && booked.get(i)[0] < window[1]; i++) {
+                addSlot(slots, cursor, booked.get(i)[0], minLength);
+                cursor = Math.max(cursor, booked.get(i)[1]);
+            }
+            addSlot(slots, cursor, window[1], minLength);
+        }
+        return slots;
+    }
+
+    private void addSlot(List<TimeSlot> slots, long start, long end, long minLength) {
+        if (end - start >= minLength) {
+            slots.add(new TimeSlot(
+                    OffsetDateTime.ofInstant(Instant.ofEpochMilli(start), ZoneOffset.UTC),
+                    OffsetDateTime.ofInstant(Instant.ofEpochMilli(end), ZoneOffset.UTC)));
+        }
+    }
+
+    // Bookings are keyed by start, so an empty slot would go unseen by conflict() and replace
+    // another session's booking at the same start
+    private static void requirePositive(int minutes) {
+        if (minutes <= 0) {
+            throw new IllegalArgumentException("Booking length must be positive, got " + minutes + " minutes");
+        }
+    }
+
+    private Schedule schedule(Long userId) {
+        return schedules.computeIfAbsent(userId, id -> new Schedule());
+    }
+
+    private static void parseWindow(String entry, List<WeeklyWindow> weekly, List<long[]> dated) {
+        if (entry == null) {
+            return;
+        }
+        try {
+            Matcher matcher = WEEKLY.matcher(entry);
+            if (matcher.matches()) {
+                DayOfWeek day = dayOf(matcher.group(1));
+                LocalTime start = LocalTime.parse(pad(matcher.group(2)));
+                LocalTime end = LocalTime.parse(pad(matcher.group(3)));
+                if (start.isBefore(end)) {
+                    weekly.add(new WeeklyWindow(day, start, end));
+                }
+                return;
+            }
+            String[] bounds = entry.trim().split("/");
+            if (bounds.length == 2) {
+                long start = OffsetDateTime.parse(bounds[0].trim()).toInstant().toEpochMilli();
+                long end = OffsetDateTime.parse(bounds[1].trim()).toInstant().toEpochMilli();
+                if (start < end) {
+                    dated.add(new long[]{start, end});
+                }
+            }
+        } catch (DateTimeParseException e) {
+            // Free-text availability is still allowed on profiles; it just isn't searchable
+        }
+    }
+
+    private static DayOfWeek dayOf(String prefix) {
+        switch (prefix.toLowerCase(Locale.ROOT)) {
+            case "mon": return DayOfWeek.MONDAY;
+            case "tue": return DayOfWeek.TUESDAY;
+            case "wed": return DayOfWeek.WEDNESDAY;
+            case "thu": return DayOfWeek.THURSDAY;
+            case "fri": return DayOfWeek.FRIDAY;
+            case "sat": return DayOfWeek.SATURDAY;
+            default: return DayOfWeek.SUNDAY;
+        }
+    }
+
+    private static String pad(String time) {
+        return time.length() == 4 ? "0" + time : time;
+    }
+
+    /**
+     * Sorts intervals and merges the overlapping or touching ones
+     */
+    private static List<long[]> merge(List<long[]> intervals) {
+        intervals.sort(Comparator.comparingLong(interval -> interval[0]));
+        List<long[]> merged = new ArrayList<>();
+        for (long[] interval : intervals) {
+            long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && interval[0] <= last[1]) {
+                last[1] = Math.max(last[1], interval[1]);
+            } else {
+                merged.add(new long[]{interval[0], interval[1]});
+            }
+        }
+        return merged;
+    }
+
+    private static final class Schedule {
+        // A user's bookings never overlap, so ordering them by start also orders them by end
+        // and the only candidate conflict for a slot is the last booking starting before it ends
+        private final TreeMap<Long, Booking> bookings = new TreeMap<>();
+        private final Map<Long, Long> startBySession = new HashMap<>();
+        private List<WeeklyWindow> weekly = Collections.emptyList();
+        private final TreeMap<Long, Long> dated = new TreeMap<>();
+
+        synchronized void setAvailability(List<WeeklyWindow> weeklyWindows, List<long[]> datedWindows) {
+            weekly = weeklyWindows;
+            dated.clear();
+            for (long[] window : datedWindows) {
+                dated.put(window[0], window[1]);
+            }
+        }
+
+        synchronized Long conflict(long start, long end, Long ignoreSessionId) {
+            Map.Entry<Long, Booking> entry = bookings.lowerEntry(end);
+            while (entry != null && entry.getValue().end > start) {
+                if (!entry.getValue().sessionId.equals(ignoreSessionId)) {
+                    return entry.getValue().sessionId;
+                }
+                entry = bookings.lowerEntry(entry.getKey());
+            }
+            return null;
+        }
+
+        synchronized boolean book(Long sessionId, long start, long end) {
+            if (conflict(start, end, sessionId) != null) {
+                return false;
+            }
+            release(sessionId);
+            bookings.put(start, new Booking(sessionId, end));
+            startBySession.put(sessionId, start);
+            return true;
+        }
+
+        synchronized void release(Long sessionId) {
+            Long start = startBySession.remove(sessionId);
+            if (start != null) {
+                bookings.remove(start);
+            }
+        }
+
+        List<long[]> bookedWithin(long from, long to) {
+            List<long[]> booked = new ArrayList<>();
+            Long first = bookings.floorKey(from);
+            for (Map.Entry<Long, Booking> entry : bookings.tailMap(first != null ? first : from, true).entrySet()) {
+                if (entry.getKey() >= to) {
+                    break;
+                }
+                if (entry.getValue().end > from) {
+                    booked.add(new long[]{entry.getKey(), entry.getValue().end});
+                }
+            }
+            return booked;
+        }
+
+        List<long[]> availableWithin(long from, long to) {
+            List<long[]> windows = new ArrayList<>();
+            Long first = dated.floorKey(from);
+            for (Map.Entry<Long, Long> entry : dated.tailMap(first != null ? first : from, true).entrySet()) {
+                if (entry.getKey() >= to) {
+                    break;
+                }
+                addClipped(windows, entry.getKey(), entry.getValue(), from, to);
+            }
+            if (!weekly.isEmpty()) {
+                LocalDate lastDay = Instant.ofEpochMilli(to).atOffset(ZoneOffset.UTC).toLocalDate();
+                for (LocalDate day = Instant.ofEpochMilli(from).atOffset(ZoneOffset.UTC).toLocalDate();
+                     !day.isAfter(lastDay); day = day.plusDays(1)) {
+                    for (WeeklyWindow window : weekly) {
+                        if (window.day == day.getDayOfWeek()) {
+                            addClipped(windows,
+                                    day.atTime(window.start).toInstant(ZoneOffset.UTC).toEpochMilli(),
+                                    day.atTime(window.end).toInstant(ZoneOffset.UTC).toEpochMilli(),
+                                    from, to);
+                        }
+                    }
+                }
+            }
+            return merge(windows);
+        }
+
+        private static void addClipped(List<long[]> windows, long start, long end, long from, long to) {
+            long clippedStart = Math.max(start, from);
+            long clippedEnd = Math.min(end, to);
+            if (clippedStart < clippedEnd) {
+                windows.add(new long[]{clippedStart, clippedEnd});
+            }
+        }
+    }
+
+    private static final class Booking {
+        private final Long sessionId;
+        private final long end;
+
+        private Booking(Long sessionId, long end) {
+            this.sessionId = sessionId;
+            this.end = end;
+        }
+    }
+
+    private static final class WeeklyWindow {
+        private final DayOfWeek day;
+        private final LocalTime start;
+        private final LocalTime end;
+
+        private WeeklyWindow(DayOfWeek day, LocalTime start, LocalTime end) {
+            this.day = day;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.skillsharing.index;
+
+import com.skillsharing.dto.SkillSuggestion;
+import com.skillsharing.model.User;
+import com.skillsharing.model.UserSkill;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted indexes from canonical skill name to the users offering and wanting it.
+ * Postings carry the user's level for the skill so matching never has to load users to score them.
+ */
+@Component
+public class SkillIndex {
+
+    private final Map<String, Map<Long, Integer>> offeredBySkill = new ConcurrentHashMap<>();
+    private final Map<String, Map<Long, Integer>> wantedBySkill = new ConcurrentHashMap<>();
+
+    // Keys currently indexed for each user, so re-indexing only touches what changed
+    private final Map<Long, Map<String, Integer>> offeredByUser = new ConcurrentHashMap<>();
+    private final Map<Long, Map<String, Integer>> wantedByUser = new ConcurrentHashMap<>();
+
+    // Striped so concurrent updates of the same user apply in order without a global lock
+    private final StripedLocks locks = new StripedLocks(64);
+
+    // Every canonical name ever indexed; names nobody holds any more are filtered out at query time
+    private final BkTree vocabulary = new BkTree();
+    private final Set<String> terms = ConcurrentHashMap.newKeySet();
+
+    // Names people currently offer or want, weighted by how many do
+    private final PrefixTrie completions = new PrefixTrie();
+
+    public static String canonicalName(String name) {
+        if (name == null) {
+            return "";
+        }
+        return name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Ranks beginner, intermediate and expert as 1, 2 and 3; unknown levels rank 0
+     */
+    public static int levelRank(String level) {
+        if (level == null) {
+            return 0;
+        }
+        switch (level.trim().toLowerCase(Locale.ROOT)) {
+            case "beginner":
+                return 1;
+            case "intermediate":
+                return 2;
+            case "expert":
+            case "advanced":
+                return 3;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Brings the user's postings in line with their current offered and wanted skills
+     */
+    public void index(User user) {
+        synchronized (locks.lockFor(user.getId())) {
+            reindex(user.getId(), toKeys(user.getOfferedSkills()), offeredByUser, offeredBySkill);
+            reindex(user.getId(), toKeys(user.getWantedSkills()), wantedByUser, wantedBySkill);
+        }
+    }
+
+    public void remove(Long userId) {
+        synchronized (locks.lockFor(userId)) {
+            reindex(userId, Collections.emptyMap(), offeredByUser, offeredBySkill);
+            reindex(userId, Collections.emptyMap(), wantedByUser, wantedBySkill);
+        }
+    }
+
+    /**
+     * Users offering the skill, with their level rank
+     */
+    public Map<Long, Integer> findOffering(String skillName) {
+        Map<Long, Integer> postings = offeredBySkill.get(canonicalName(skillName));
+        return postings != null ? Collections.unmodifiableMap(postings) : Collections.emptyMap();
+    }
+
+    public Map<Long, Integer> findWanting(String skillName) {
+        Map<Long, Integer> postings = wantedBySkill.get(canonicalName(skillName));
+        return postings != null ? Collections.unmodifiableMap(postings) : Collections.emptyMap();
+    }
+
+    /**
+     * Skills whose canonical name contains the query or is within a few typos of it, ranked by
+     * edit distance (exact names first), then teachers, then learners. Cost depends on the vocabulary, not the users.
+     */
+    public List<SkillSuggestion> searchSkills(String query, int limit) {
+        String key = canonicalName(query);
+        Map<String, Integer> distances = new HashMap<>();
+        if (key.isEmpty()) {
+            return new ArrayList<>();
+        }
+        vocabulary.search(key, maxEdits(key), distances::put);
+        for (String term : terms) {
+            if (term.contains(key)) {
+                distances.put(term, 0);
+            }
+        }
+
+        List<SkillSuggestion> suggestions = new ArrayList<>();
+        distances.forEach((term, distance) -> {
+            int teachers = findOffering(term).size();
+            int learners = findWanting(term).size();
+            if (teachers + learners > 0) {
+                suggestions.add(new SkillSuggestion(term, distance, teachers, learners));
+            }
+        });
+        suggestions.sort(Comparator.comparingInt(SkillSuggestion::getDistance)
+                .thenComparing(suggestion -> !suggestion.getName().equals(key))
+                .thenComparing(Comparator.comparingInt(SkillSuggestion::getTeachers).reversed())
+                .thenComparing(Comparator.comparingInt(SkillSuggestion::getLearners).reversed())
+                .thenComparing(SkillSuggestion::getName));
+        return suggestions.size() > limit ? new ArrayList<>(suggestions.subList(0, limit)) : suggestions;
+    }
+
+    /**
+     * Up to limit skill names starting with the prefix, most popular first
+     */
+    public List<String> completeSkill(String prefix, int limit) {
+        String key = canonicalName(prefix);
+        return key.isEmpty() ? new ArrayList<>() : completions.complete(key, limit);
+    }
+
+    /**
+     * Typos tolerated for a query: none for very short names, where one edit is a different skill
+     */
+    static int maxEdits(String key) {
+        if (key.length() <= 2) {
+            return 0;
+        }
+        return key.length() <= 5 ? 1 : 2;
+    }
+
+    public Map<String, Integer> offeredSkillsOf(Long userId) {
+        Map<String, Integer> keys = offeredByUser.get(userId);
+        return keys != null ? Collections.unmodifiableMap(keys) : Collections.emptyMap();
+    }
+
+    public Map<String, Integer> wantedSkillsOf(Long userId) {
+        Map<String, Integer> keys = wantedByUser.get(userId);
+        return keys != null ? Collections.unmodifiableMap(keys) : Collections.emptyMap();
+    }
+
+    private void reindex(Long userId, Map<String, Integer> current,
+                         Map<Long, Map<String, Integer>> byUser,
+                         Map<String, Map<Long, Integer>> bySkill) {
+        Map<String, Integer> previous = byUser.getOrDefault(userId, Collections.emptyMap());
+        for (String key : previous.keySet()) {
+            if (!current.containsKey(key)) {
+                bySkill.computeIfPresent(key, (k, postings) -> {
+                    postings.remove(userId);
+                    return postings.isEmpty() ? null : postings;
+                });
+                refreshCompletion(key);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : current.entrySet()) {
+            if (terms.add(entry.getKey())) {
+                vocabulary.add(entry.getKey());
+            }
+            bySkill.compute(entry.getKey(), (k, postings) -> {
+                Map<Long, Integer> updated = postings != null ? postings : new ConcurrentHashMap<>();
+                updated.put(userId, entry.getValue());
+                return updated;
+            });
+            if (!previous.containsKey(entry.getKey())) {
+                refreshCompletion(entry.getKey());
+            }
+        }
+        if (current.isEmpty()) {
+            byUser.remove(userId);
+        } else {
+            byUser.put(userId, current);
+        }
+    }
+
+    private void refreshCompletion(String key) {
+        // Counted under the trie's lock so the last of two racing updates writes the newest count
+        synchronized (completions) {
+            completions.put(key, findOffering(key).size() + findWanting(key).size());
+        }
+    }
+
+    private Map<String, Integer> toKeys(List<UserSkill> skills) {
+        Map<String, Integer> keys = new HashMap<>();
+        if (skills != null) {
+            for (UserSkill skill : skills) {
+                String key = canonicalName(skill.getName());
+                if (!key.isEmpty()) {
+                    keys.merge(key, levelRank(skill.getLevel()), Math::max);
+                }
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,154 @@
+package com.skillsharing.index;
+
+import com.skillsharing.model.User;
+import com.skillsharing.model.UserSkill;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Teachers ordered by rating, then review count, then ID, for every offered skill and skill category.
+ * Each board is a concurrent skip list, so an update costs O(log n) and a page of k costs O(log n + k).
+ */
+@Component
+public class TeacherLeaderboard {
+
+    private final Map<String, ConcurrentSkipListSet<Standing>> bySkill = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentSkipListSet<Standing>> byCategory = new ConcurrentHashMap<>();
+
+    // Where each user currently sits, so an update can remove the stale entries
+    private final Map<Long, Placement> placements = new ConcurrentHashMap<>();
+    private final StripedLocks locks = new StripedLocks(64);
+
+    /**
+     * Re-ranks the user after a rating change or an offered-skill change
+     */
+    public void update(User user) {
+        synchronized (locks.lockFor(user.getId())) {
+            Placement previous = placements.get(user.getId());
+            Placement current = placementOf(user);
+            if (previous != null) {
+                previous.skills.forEach(skill -> removeFrom(bySkill, skill, previous.standing));
+                previous.categories.forEach(category -> removeFrom(byCategory, category, previous.standing));
+            }
+            if (current.skills.isEmpty()) {
+                placements.remove(user.getId());
+                return;
+            }
+            current.skills.forEach(skill -> addTo(bySkill, skill, current.standing));
+            current.categories.forEach(category -> addTo(byCategory, category, current.standing));
+            placements.put(user.getId(), current);
+        }
+    }
+
+    public void remove(Long userId) {
+        synchronized (locks.lockFor(userId)) {
+            Placement previous = placements.remove(userId);
+            if (previous != null) {
+                previous.skills.forEach(skill -> removeFrom(bySkill, skill, previous.standing));
+                previous.categories.forEach(category -> removeFrom(byCategory, category, previous.standing));
+            }
+        }
+    }
+
+    public List<Long> topForSkill(String skillName, int offset, int limit) {
+        return page(bySkill.get(SkillIndex.canonicalName(skillName)), offset, limit);
+    }
+
+    public List<Long> topForCategory(String category, int offset, int limit) {
+        return page(byCategory.get(SkillIndex.canonicalName(category)), offset, limit);
+    }
+
+    private List<Long> page(ConcurrentSkipListSet<Standing> board, int offset, int limit) {
+        List<Long> userIds = new ArrayList<>(limit);
+        if (board == null) {
+            return userIds;
+        }
+        Iterator<Standing> iterator = board.iterator();
+        for (int skipped = 0; skipped < offset && iterator.hasNext(); skipped++) {
+            iterator.next();
+        }
+        while (userIds.size() < limit && iterator.hasNext()) {
+            userIds.add(iterator.next().userId);
+        }
+        return userIds;
+    }
+
+    private Placement placementOf(User user) {
+        Standing standing = new Standing(user.getId(),
+                user.getRating() != null ? user.getRating() : 0.0,
+                user.getTotalReviews() != null ? user.getTotalReviews() : 0);
+        Set<String> skills = new HashSet<>();
+        Set<String> categories = new HashSet<>();
+        if (user.getOfferedSkills() != null) {
+            for (UserSkill skill : user.getOfferedSkills()) {
+                String name = SkillIndex.canonicalName(skill.getName());
+                if (!name.isEmpty()) {
+                    skills.add(name);
+                }
+                String category = SkillIndex.canonicalName(skill.getCategory());
+                if (!category.isEmpty()) {
+                    categories.add(category);
+                }
+            }
+        }
+        return new Placement(standing, skills, categories);
+    }
+
+    private void addTo(Map<String, ConcurrentSkipListSet<Standing>> boards, String key, Standing standing) {
+        boards.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>()).add(standing);
+    }
+
+    private void removeFrom(Map<String, ConcurrentSkipListSet<Standing>> boards, String key, Standing standing) {
+        ConcurrentSkipListSet<Standing> board = boards.get(key);
+        if (board != null) {
+            board.remove(standing);
+        }
+    }
+
+    private static final class Standing implements Comparable<Standing> {
+        private final long userId;
+        private final double rating;
+        private final int reviews;
+
+        private Standing(long userId, double rating, int reviews) {
+            this.userId = userId;
+            this.rating = rating;
+            this.reviews = reviews;
+        }
+
+        @Override
+        public int compareTo(Standing other) {
+            int byRating = Double.compare(other.rating, rating);
+            if (byRating != 0) {
+                return byRating;
+            }
+            int byReviews = Integer.compare(other.reviews, reviews);
+            return byReviews != 0 ? byReviews : Long.compare(userId, other.userId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Standing && compareTo((Standing) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(userId);
+        }
+    }
+
+    private static final class Placement {
+        private final Standing standing;
+        private final Set<String> skills;
+        private final Set<String> categories;
+
+        private Placement(Standing standing, Set<String> skills, Set<String> categories) {
+            this.standing = standing;
+            this.skills = skills;
+            this.categories = categories;
+        }
+    }
+}
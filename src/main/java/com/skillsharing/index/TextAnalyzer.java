@@ -0,0 +1,78 @@
+package com.skillsharing.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits free text into index terms: lowercased letter/digit runs, minus common English stop
+ * words, with a light suffix-stripping stemmer so "teaching", "teaches" and "teach" meet.
+ */
+public final class TextAnalyzer {
+
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "has", "have",
+            "i", "in", "into", "is", "it", "its", "me", "my", "of", "on", "or", "our", "so", "that",
+            "the", "their", "them", "they", "this", "to", "was", "we", "were", "will", "with", "you", "your"));
+
+    private TextAnalyzer() {
+    }
+
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = lower.substring(start, i);
+                if (!STOP_WORDS.contains(token)) {
+                    terms.add(stem(token));
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Strips plural, -ing, -ed and -ly endings, keeping at least a three-letter stem
+     */
+    static String stem(String word) {
+        if (word.length() <= 3 || !Character.isLetter(word.charAt(word.length() - 1))) {
+            return word;
+        }
+        if (word.endsWith("ies") && word.length() > 4) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if (word.endsWith("sses")) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("es") && (word.endsWith("ches") || word.endsWith("shes") || word.endsWith("xes"))) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us") && !word.endsWith("is")) {
+            word = word.substring(0, word.length() - 1);
+        }
+        for (String suffix : new String[]{"ing", "ed", "ly"}) {
+            if (word.endsWith(suffix) && word.length() - suffix.length() >= 3) {
+                String stem = word.substring(0, word.length() - suffix.length());
+                // "running" -> "run", but "falling" keeps its "ll"
+                int n = stem.length();
+                if (n >= 2 && stem.charAt(n - 1) == stem.charAt(n - 2) && "bdgmnprt".indexOf(stem.charAt(n - 1)) >= 0) {
+                    stem = stem.substring(0, n - 1);
+                }
+                return stem;
+            }
+        }
+        return word;
+    }
+}
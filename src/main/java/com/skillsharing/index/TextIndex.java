@@ -0,0 +1,224 @@
+package com.skillsharing.index;
+
+import com.skillsharing.model.User;
+import com.skillsharing.model.UserSkill;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over each user's full name, bio and skill names and descriptions, ranked with
+ * BM25. Postings are ordered by user ID so queries can run WAND: cursors are only scored at
+ * users whose summed per-term score bounds could still beat the current top-K, and everything
+ * else is skipped over.
+ */
+@Component
+public class TextIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, Term> terms = new HashMap<>();
+    private final Map<Long, Map<String, Integer>> termsByUser = new HashMap<>();
+    private final Map<Long, Integer> lengths = new HashMap<>();
+    private long totalLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Replaces the user's document with their current name, bio and skills
+     */
+    public void index(User user) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        List<String> analyzed = new ArrayList<>(TextAnalyzer.analyze(user.getFullName()));
+        analyzed.addAll(TextAnalyzer.analyze(user.getBio()));
+        for (List<UserSkill> skills : Arrays.asList(user.getOfferedSkills(), user.getWantedSkills())) {
+            if (skills == null) {
+                continue;
+            }
+            for (UserSkill skill : skills) {
+                analyzed.addAll(TextAnalyzer.analyze(skill.getName()));
+                analyzed.addAll(TextAnalyzer.analyze(skill.getDescription()));
+            }
+        }
+        for (String term : analyzed) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (frequencies.equals(termsByUser.get(user.getId()))) {
+                return;
+            }
+            removeLocked(user.getId());
+            if (frequencies.isEmpty()) {
+                return;
+            }
+            for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+                terms.computeIfAbsent(frequency.getKey(), t -> new Term()).add(user.getId(), frequency.getValue());
+            }
+            termsByUser.put(user.getId(), frequencies);
+            lengths.put(user.getId(), analyzed.size());
+            totalLength += analyzed.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long userId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The best-scoring users for the query, highest first, mapped to their BM25 scores
+     */
+    public LinkedHashMap<Long, Double> search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            int documents = lengths.size();
+            double averageLength = documents > 0 ? (double) totalLength / documents : 0;
+            List<Cursor> cursors = new ArrayList<>();
+            for (String term : new LinkedHashSet<>(TextAnalyzer.analyze(query))) {
+                Term postings = terms.get(term);
+                if (postings != null) {
+                    cursors.add(new Cursor(postings, idf(postings.postings.size(), documents)));
+                }
+            }
+
+            PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(
+                    Map.Entry.<Long, Double>comparingByValue().thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed()));
+            cursors.removeIf(Cursor::exhausted);
+            while (!cursors.isEmpty()) {
+                double threshold = top.size() < limit ? 0 : top.peek().getValue();
+                cursors.sort(Comparator.comparingLong(Cursor::user));
+
+                // Pivot: first cursor at which the bounds of it and everything before it beat the threshold
+                int pivot = -1;
+                double bound = 0;
+                for (int i = 0; i < cursors.size(); i++) {
+                    bound += cursors.get(i).maxScore;
+                    if (bound > threshold) {
+                        pivot = i;
+                        break;
+                    }
+                }
+                if (pivot < 0) {
+                    break;
+                }
+                long pivotUser = cursors.get(pivot).user();
+                if (cursors.get(0).user() == pivotUser) {
+                    double score = 0;
+                    double norm = K1 * (1 - B + B * lengths.get(pivotUser) / averageLength);
+                    for (Cursor cursor : cursors) {
+                        if (cursor.user() != pivotUser) {
+                            break;
+                        }
+                        int tf = cursor.frequency();
+                        score += cursor.idf * tf * (K1 + 1) / (tf + norm);
+                        cursor.next();
+                    }
+                    if (top.size() < limit) {
+                        top.add(new AbstractMap.SimpleEntry<>(pivotUser, score));
+                    } else if (score > threshold) {
+                        top.poll();
+                        top.add(new AbstractMap.SimpleEntry<>(pivotUser, score));
+                    }
+                } else {
+                    // Nobody before the pivot can score on their own; jump them to the pivot user
+                    for (int i = 0; i < pivot; i++) {
+                        cursors.get(i).advanceTo(pivotUser);
+                    }
+                }
+                cursors.removeIf(Cursor::exhausted);
+            }
+
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(top);
+            ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+            LinkedHashMap<Long, Double> results = new LinkedHashMap<>();
+            ranked.forEach(entry -> results.put(entry.getKey(), entry.getValue()));
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(Long userId) {
+        Map<String, Integer> previous = termsByUser.remove(userId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.keySet()) {
+            Term postings = terms.get(term);
+            postings.postings.remove(userId);
+            if (postings.postings.isEmpty()) {
+                terms.remove(term);
+            }
+        }
+        totalLength -= lengths.remove(userId);
+    }
+
+    private static double idf(int documentFrequency, int documents) {
+        return Math.log(1 + (documents - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private static final class Term {
+        private final TreeMap<Long, Integer> postings = new TreeMap<>();
+        // Never lowered on removal, so it stays an upper bound
+        private int maxFrequency;
+
+        private void add(Long userId, int frequency) {
+            postings.put(userId, frequency);
+            maxFrequency = Math.max(maxFrequency, frequency);
+        }
+    }
+
+    /**
+     * Walks one term's postings during a query. Its score bound assumes the highest frequency
+     * seen for the term in the shortest possible document, which no real posting can exceed.
+     */
+    private static final class Cursor {
+        private final Term term;
+        private final double idf;
+        private final double maxScore;
+        private Iterator<Map.Entry<Long, Integer>> iterator;
+        private Map.Entry<Long, Integer> current;
+
+        private Cursor(Term term, double idf) {
+            this.term = term;
+            this.idf = idf;
+            this.maxScore = idf * term.maxFrequency * (K1 + 1) / (term.maxFrequency + K1 * (1 - B));
+            this.iterator = term.postings.entrySet().iterator();
+            next();
+        }
+
+        private boolean exhausted() {
+            return current == null;
+        }
+
+        private long user() {
+            return current.getKey();
+        }
+
+        private int frequency() {
+            return current.getValue();
+        }
+
+        private void next() {
+            current = iterator.hasNext() ? iterator.next() : null;
+        }
+
+        private void advanceTo(long userId) {
+            if (current != null && current.getKey() < userId) {
+                iterator = term.postings.tailMap(userId, true).entrySet().iterator();
+                next();
+            }
+        }
+    }
+}
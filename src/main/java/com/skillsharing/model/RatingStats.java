@@ -0,0 +1,68 @@
+package com.skillsharing.model;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free rating accumulators for one user: star sum, review count and a 1-5 star histogram.
+ * Concurrent reviews only ever add, so none are lost; the average is derived when read.
+ */
+public class RatingStats {
+    public static final int MIN_STARS = 1;
+    public static final int MAX_STARS = 5;
+
+    private final LongAdder sum = new LongAdder();
+    private final LongAdder count = new LongAdder();
+    private final LongAdder[] histogram = new LongAdder[MAX_STARS];
+
+    public RatingStats() {
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = new LongAdder();
+        }
+    }
+
+    public static int clamp(int stars) {
+        return Math.max(MIN_STARS, Math.min(MAX_STARS, stars));
+    }
+
+    public void record(int stars) {
+        int bucket = clamp(stars);
+        sum.add(bucket);
+        count.increment();
+        histogram[bucket - 1].increment();
+    }
+
+    public double average() {
+        long reviews = count.sum();
+        return reviews == 0 ? 0.0 : (double) sum.sum() / reviews;
+    }
+
+    public long sum() {
+        return sum.sum();
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Review counts for 1 to 5 stars, index 0 holding the 1-star count
+     */
+    public long[] histogram() {
+        long[] counts = new long[histogram.length];
+        for (int i = 0; i < histogram.length; i++) {
+            counts[i] = histogram[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * Applies a correction found by an exact recompute, without discarding concurrent additions
+     */
+    public void adjust(long sumDelta, long countDelta, long[] histogramDelta) {
+        sum.add(sumDelta);
+        count.add(countDelta);
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i].add(histogramDelta[i]);
+        }
+    }
+}
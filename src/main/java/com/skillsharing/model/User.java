@@ -1,5 +1,6 @@
 package com.skillsharing.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,11 +19,15 @@ public class User {
     private String fullName;
     private String bio;
     private String location;
-    private List<Skill> offeredSkills = new ArrayList<>();
-    private List<Skill> wantedSkills = new ArrayList<>();
+    private Double latitude; // optional, used for nearby search
+    private Double longitude;
+    private List<UserSkill> offeredSkills = new ArrayList<>();
+    private List<UserSkill> wantedSkills = new ArrayList<>();
     private List<String> availability = new ArrayList<>();
-    private Double rating = 0.0;
-    private Integer totalReviews = 0;
+
+    // Updated lock-free by new reviews; rating and totalReviews are derived from it on read
+    @JsonIgnore
+    private final RatingStats ratingStats = new RatingStats();
 
     // Google OAuth fields
     private String googleId;
@@ -34,4 +39,12 @@ public class User {
     // Google Calendar specific tokens
     private String googleCalendarToken;
     private Long googleCalendarTokenExpiry;
+
+    public Double getRating() {
+        return ratingStats.average();
+    }
+
+    public Integer getTotalReviews() {
+        return (int) ratingStats.count();
+    }
 }
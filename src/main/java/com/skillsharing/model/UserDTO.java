@@ -8,8 +8,10 @@ public class UserDTO {
     private String fullName;
     private String bio;
     private String location;
-    private List<Skill> offeredSkills;
-    private List<Skill> wantedSkills;
+    private Double latitude;
+    private Double longitude;
+    private List<UserSkill> offeredSkills;
+    private List<UserSkill> wantedSkills;
     private List<String> availability;
     private double rating;
     private int totalReviews;
@@ -22,6 +24,8 @@ public class UserDTO {
         this.fullName = user.getFullName();
         this.bio = user.getBio();
         this.location = user.getLocation();
+        this.latitude = user.getLatitude();
+        this.longitude = user.getLongitude();
         this.offeredSkills = user.getOfferedSkills();
         this.wantedSkills = user.getWantedSkills();
         this.availability = user.getAvailability();
@@ -45,11 +49,17 @@ public class UserDTO {
     public String getLocation() { return location; }
     public void setLocation(String location) { this.location = location; }
 
-    public List<Skill> getOfferedSkills() { return offeredSkills; }
-    public void setOfferedSkills(List<Skill> offeredSkills) { this.offeredSkills = offeredSkills; }
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
 
-    public List<Skill> getWantedSkills() { return wantedSkills; }
-    public void setWantedSkills(List<Skill> wantedSkills) { this.wantedSkills = wantedSkills; }
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+
+    public List<UserSkill> getOfferedSkills() { return offeredSkills; }
+    public void setOfferedSkills(List<UserSkill> offeredSkills) { this.offeredSkills = offeredSkills; }
+
+    public List<UserSkill> getWantedSkills() { return wantedSkills; }
+    public void setWantedSkills(List<UserSkill> wantedSkills) { this.wantedSkills = wantedSkills; }
 
     public List<String> getAvailability() { return availability; }
     public void setAvailability(List<String> availability) { this.availability = availability; }
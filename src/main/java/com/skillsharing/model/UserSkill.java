@@ -0,0 +1,65 @@
+package com.skillsharing.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A user's link to a shared catalog skill, carrying only what is per-user: the level.
+ * Serializes with the catalog skill's fields inline, in the same shape as a {@link Skill}.
+ * Read back from client JSON, those fields fill a detached Skill rather than the catalog one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSkill {
+    @JsonIgnore
+    private Skill skill;
+    private String level; // beginner, intermediate, expert
+
+    public Long getId() {
+        return skill != null ? skill.getId() : null;
+    }
+
+    public String getName() {
+        return skill != null ? skill.getName() : null;
+    }
+
+    public String getCategory() {
+        return skill != null ? skill.getCategory() : null;
+    }
+
+    public String getDescription() {
+        return skill != null ? skill.getDescription() : null;
+    }
+
+    @JsonProperty("id")
+    private void setId(Long id) {
+        detachedSkill().setId(id);
+    }
+
+    @JsonProperty("name")
+    private void setName(String name) {
+        detachedSkill().setName(name);
+    }
+
+    @JsonProperty("category")
+    private void setCategory(String category) {
+        detachedSkill().setCategory(category);
+    }
+
+    @JsonProperty("description")
+    private void setDescription(String description) {
+        detachedSkill().setDescription(description);
+    }
+
+    // Only Jackson calls the setters above, on a fresh instance, so this never touches a catalog skill
+    private Skill detachedSkill() {
+        if (skill == null) {
+            skill = new Skill();
+        }
+        return skill;
+    }
+}
@@ -0,0 +1,206 @@
+package com.skillsharing.replication;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillsharing.events.ChangeEvent;
+import com.skillsharing.events.ChangeEventBus;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ordered log of repository saves and deletes that a primary ships to its replicas. Each record
+ * carries the entity's full state, so replaying a record twice, or after a snapshot that already
+ * reflects it, is harmless. Only the latest records are retained; a replica further behind
+ * catches up from a snapshot instead. Outside primary mode nothing is recorded.
+ *
+ * <p>Records live in a ring indexed by offset modulo the retention, written only by the bus's
+ * thread for this log. Readers copy from it without locking and check each record's offset, so
+ * a record overwritten mid-copy is detected; the lock is only taken to wait for new records.
+ */
+@Component
+public class ChangeLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeLog.class);
+
+    private static final int SERIALIZE_ATTEMPTS = 3;
+
+    @Value("${replication.role:standalone}")
+    private String role;
+
+    @Value("${replication.log-retention:100000}")
+    private int retention;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ChangeEventBus changeEventBus;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private AtomicReferenceArray<ChangeRecord> records;
+    // Published after the record's slot is written, so every offset below it is readable
+    private volatile long nextOffset;
+    // Offsets below this can no longer be streamed, as a change in between was lost
+    private volatile long resnapshotBefore;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private ObjectMapper codec;
+
+    @PostConstruct
+    public void init() {
+        records = new AtomicReferenceArray<>(Math.max(1, retention));
+        codec = ReplicationCodec.create(objectMapper);
+        if (ReplicationRole.PRIMARY.equals(role)) {
+            changeEventBus.subscribeAsync("replication-log", this::append, this::skipMissedChanges);
+        }
+    }
+
+    public ObjectMapper codec() {
+        return codec;
+    }
+
+    /**
+     * Offset the next record will get
+     */
+    public long head() {
+        return nextOffset;
+    }
+
+    /**
+     * Up to max records starting at offset, waiting up to waitMs for one to arrive.
+     * Returns null when offset is older than the retained log, or than a lost change.
+     */
+    public List<ChangeRecord> readFrom(long offset, int max, long waitMs) throws InterruptedException {
+        if (offset >= nextOffset && waitMs > 0) {
+            awaitAppend(offset, waitMs);
+        }
+        long head = nextOffset;
+        if (offset < oldestReadable(head)) {
+            return null;
+        }
+        long end = Math.min(head, offset + max);
+        List<ChangeRecord> batch = new ArrayList<>((int) Math.max(0, end - offset));
+        for (long next = offset; next < end; next++) {
+            ChangeRecord record = records.get(slot(next));
+            // Overwritten by a newer record since head was read: the reader fell out of the log
+            if (record == null || record.getOffset() != next) {
+                return null;
+            }
+            batch.add(record);
+        }
+        return batch;
+    }
+
+    private long oldestReadable(long head) {
+        return Math.max(head - records.length(), resnapshotBefore);
+    }
+
+    private void awaitAppend(long offset, long waitMs) throws InterruptedException {
+        waiting.incrementAndGet();
+        lock.lock();
+        try {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(waitMs);
+            while (offset >= nextOffset && nanos > 0) {
+                nanos = appended.awaitNanos(nanos);
+            }
+        } finally {
+            lock.unlock();
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Serializes the entity as it is now, on the bus's thread for this log. Entities are shared
+     * mutable objects, so this may already include later changes; records follow event order,
+     * so the last record for an entity always carries its latest state.
+     */
+    private void append(ChangeEvent event) {
+        String type = event.isDelete() ? ChangeRecord.DELETE : ChangeRecord.SAVE;
+        JsonNode state;
+        try {
+            state = event.isDelete() ? null : serialize(event.getEntity());
+        } catch (RuntimeException e) {
+            skipLostChange(event, e);
+            return;
+        }
+        append(new ChangeRecord(type, 0, event.getTimestamp(), event.getStore(), event.getId(), state));
+    }
+
+    // A save racing with this read can change a collection mid-walk; the retry sees its result
+    private JsonNode serialize(Object entity) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return codec.valueToTree(entity);
+            } catch (RuntimeException e) {
+                if (attempt == SERIALIZE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void skipLostChange(ChangeEvent event, RuntimeException e) {
+        long offset = skipOffset();
+        meterRegistry.counter("replication.log.lost", "cause", "serialization").increment();
+        logger.error("event=replication.change_lost store={} id={} offset={} action=resnapshot_replicas",
+                event.getStore(), event.getId(), offset, e);
+    }
+
+    // The bus overwrote events this log had not recorded yet
+    private void skipMissedChanges() {
+        long offset = skipOffset();
+        meterRegistry.counter("replication.log.lost", "cause", "overrun").increment();
+        logger.error("event=replication.changes_missed offset={} action=resnapshot_replicas", offset);
+    }
+
+    /**
+     * Gives up the next offset and moves the oldest streamable offset past it, so every replica
+     * that has not seen the lost change is sent a fresh snapshot instead of silently missing it
+     */
+    private long skipOffset() {
+        long offset = nextOffset;
+        records.set(slot(offset), null);
+        resnapshotBefore = offset + 1;
+        publish(offset + 1);
+        return offset;
+    }
+
+    private void append(ChangeRecord record) {
+        long offset = nextOffset;
+        record.setOffset(offset);
+        records.set(slot(offset), record);
+        publish(offset + 1);
+    }
+
+    private void publish(long head) {
+        nextOffset = head;
+        if (waiting.get() > 0) {
+            lock.lock();
+            try {
+                appended.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private int slot(long offset) {
+        return (int) (offset % records.length());
+    }
+}
@@ -0,0 +1,27 @@
+package com.skillsharing.replication;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of the replication stream: a repository change, a snapshot marker or a heartbeat
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeRecord {
+    public static final String SAVE = "save";
+    public static final String DELETE = "delete";
+    public static final String SNAPSHOT_BEGIN = "snapshot-begin";
+    public static final String SNAPSHOT_END = "snapshot-end";
+    public static final String HEARTBEAT = "heartbeat";
+
+    private String type;
+    private long offset; // log position; for markers and heartbeats, the primary's next offset
+    private long timestamp; // primary clock, epoch milliseconds
+    private String store;
+    private Long id;
+    private JsonNode entity; // full entity state for saves
+}
@@ -0,0 +1,223 @@
+package com.skillsharing.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Follows the primary's change log when running as a replica: connects, asks for the records
+ * after the last one applied, and applies them in order on a single thread, reconnecting with
+ * backoff when the connection drops. Lag is how many records, and for how long, the replica has
+ * been behind the head offset the primary last reported.
+ */
+@Component
+public class ReplicaClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaClient.class);
+
+    private static final long MIN_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 10000;
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+
+    @Value("${replication.role:standalone}")
+    private String role;
+
+    @Value("${replication.primary-host:localhost}")
+    private String primaryHost;
+
+    @Value("${replication.primary-port:9099}")
+    private int primaryPort;
+
+    @Autowired
+    private ChangeLog changeLog;
+
+    @Autowired
+    private ReplicatedStores replicatedStores;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ReplicationTransport transport;
+
+    private volatile boolean running;
+    private volatile boolean connected;
+    private volatile Socket socket;
+    // Offset of the next record to apply; -1 until the first snapshot
+    private volatile long nextOffset = -1;
+    private volatile long primaryHead;
+    private volatile long behindSince;
+
+    @PostConstruct
+    public void start() {
+        if (!ReplicationRole.REPLICA.equals(role)) {
+            return;
+        }
+        Gauge.builder("replication.lag.records", this, ReplicaClient::lagRecords).register(meterRegistry);
+        Gauge.builder("replication.lag.ms", this, ReplicaClient::lagMs).register(meterRegistry);
+        running = true;
+        Thread follower = new Thread(this::followLoop, "replica-client");
+        follower.setDaemon(true);
+        follower.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        running = false;
+        Socket current = socket;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public long appliedOffset() {
+        return nextOffset;
+    }
+
+    public long primaryHead() {
+        return primaryHead;
+    }
+
+    public long lagRecords() {
+        return Math.max(0, primaryHead - nextOffset);
+    }
+
+    /**
+     * How long the replica has been behind the primary's head, 0 when caught up
+     */
+    public long lagMs() {
+        long since = behindSince;
+        return since == 0 ? 0 : System.currentTimeMillis() - since;
+    }
+
+    private void followLoop() {
+        long backoff = MIN_BACKOFF_MS;
+        while (running) {
+            try (Socket connection = transport.connect(primaryHost, primaryPort, CONNECT_TIMEOUT_MS)) {
+                socket = connection;
+                connected = true;
+                logger.info("event=replication.connected primary={}:{} fromOffset={}", primaryHost, primaryPort, nextOffset);
+                backoff = MIN_BACKOFF_MS;
+                follow(connection);
+            } catch (IOException e) {
+                if (running) {
+                    logger.warn("event=replication.disconnected primary={}:{} error={} retryMs={}",
+                            primaryHost, primaryPort, e.getMessage(), backoff);
+                }
+            } finally {
+                connected = false;
+                socket = null;
+            }
+            if (running) {
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = Math.min(MAX_BACKOFF_MS, backoff * 2);
+            }
+        }
+    }
+
+    private void follow(Socket connection) throws IOException {
+        ObjectMapper codec = changeLog.codec();
+        Writer out = new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8);
+        BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+        String greeting = in.readLine();
+        if (greeting == null) {
+            return;
+        }
+        String challenge = codec.readTree(greeting).path("challenge").asText();
+        Map<String, Object> handshake = new HashMap<>();
+        handshake.put("fromOffset", nextOffset);
+        handshake.put("response", transport.respond(challenge));
+        out.write(codec.writeValueAsString(handshake));
+        out.write('\n');
+        out.flush();
+        // Store -> IDs the snapshot in progress contains, null outside a snapshot
+        Map<String, Set<Long>> snapshotIds = null;
+        String line;
+        while ((line = in.readLine()) != null) {
+            ChangeRecord record = codec.readValue(line, ChangeRecord.class);
+            switch (record.getType()) {
+                case ChangeRecord.SNAPSHOT_BEGIN:
+                    snapshotIds = new HashMap<>();
+                    primaryHead = record.getOffset();
+                    logger.info("event=replication.snapshot_started offset={}", record.getOffset());
+                    break;
+                case ChangeRecord.SNAPSHOT_END:
+                    int pruned = prune(snapshotIds);
+                    snapshotIds = null;
+                    nextOffset = record.getOffset();
+                    logger.info("event=replication.snapshot_applied offset={} pruned={}", record.getOffset(), pruned);
+                    break;
+                case ChangeRecord.HEARTBEAT:
+                    primaryHead = record.getOffset();
+                    break;
+                default:
+                    apply(record);
+                    if (snapshotIds != null) {
+                        snapshotIds.computeIfAbsent(record.getStore(), store -> new HashSet<>()).add(record.getId());
+                    } else {
+                        nextOffset = record.getOffset() + 1;
+                        primaryHead = Math.max(primaryHead, nextOffset);
+                    }
+            }
+            updateLag();
+        }
+    }
+
+    private void apply(ChangeRecord record) {
+        try {
+            replicatedStores.apply(record);
+        } catch (IOException | RuntimeException e) {
+            logger.error("event=replication.apply_failed store={} id={} offset={} error={}",
+                    record.getStore(), record.getId(), record.getOffset(), e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes local entities a snapshot no longer has, i.e. deleted while this replica was away
+     */
+    private int prune(Map<String, Set<Long>> snapshotIds) {
+        int pruned = 0;
+        for (String store : replicatedStores.names()) {
+            Set<Long> kept = snapshotIds.getOrDefault(store, new HashSet<>());
+            for (Long id : replicatedStores.ids(store)) {
+                if (!kept.contains(id)) {
+                    replicatedStores.delete(store, id);
+                    pruned++;
+                }
+            }
+        }
+        return pruned;
+    }
+
+    private void updateLag() {
+        if (nextOffset >= primaryHead) {
+            behindSince = 0;
+        } else if (behindSince == 0) {
+            behindSince = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.skillsharing.replication;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Rejects writes on a replica with 503, since anything written there would be overwritten by, or
+ * never reach, the primary. Login stays open, as it only reads the replicated user.
+ */
+@Component
+public class ReplicaReadOnlyFilter extends OncePerRequestFilter {
+
+    private static final String LOGIN_PATH = "/api/auth/login";
+
+    @Value("${replication.role:standalone}")
+    private String role;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!ReplicationRole.REPLICA.equals(role)) {
+            return true;
+        }
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)
+                || ("POST".equals(method) && LOGIN_PATH.equals(request.getRequestURI()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write("Read-only replica; send writes to the primary");
+    }
+}
@@ -0,0 +1,177 @@
+package com.skillsharing.replication;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.skillsharing.events.ChangeEvent;
+import com.skillsharing.model.*;
+import com.skillsharing.repository.*;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The repositories a primary replicates, by store name, with how a replica applies each one's
+ * saves and deletes. Changes go through the repositories, so the replica's indexes follow them
+ * through the change event bus as the primary's do. Stores are listed in snapshot order;
+ * skills come before the users that reference them.
+ */
+@Component
+public class ReplicatedStores {
+
+    @Autowired
+    private ChangeLog changeLog;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SkillRepository skillRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private SessionRequestRepository sessionRequestRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    private final Map<String, Store<?>> stores = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        register(ChangeEvent.SKILLS, Skill.class, skillRepository::findAll, Skill::getId,
+                this::applySkill, skillRepository::deleteById);
+        register(ChangeEvent.USERS, User.class, userRepository::findAll, User::getId,
+                this::applyUser, userRepository::deleteById);
+        register(ChangeEvent.SESSIONS, Session.class, sessionRepository::findAll, Session::getId,
+                sessionRepository::save, sessionRepository::deleteById);
+        // Requests, messages and reviews are never deleted on the primary
+        register(ChangeEvent.SESSION_REQUESTS, SessionRequest.class, sessionRequestRepository::findAll,
+                SessionRequest::getId, this::applySessionRequest, id -> { });
+        register(ChangeEvent.MESSAGES, Message.class, messageRepository::findAll, Message::getId,
+                messageRepository::save, id -> { });
+        register(ChangeEvent.REVIEWS, Review.class, reviewRepository::findAll, Review::getId,
+                reviewRepository::save, id -> { });
+    }
+
+    public Set<String> names() {
+        return stores.keySet();
+    }
+
+    /**
+     * A save record for every entity in the store, for a snapshot
+     */
+    public void snapshot(String store, Consumer<ChangeRecord> out) {
+        stores.get(store).snapshot(changeLog, out);
+    }
+
+    /**
+     * IDs of every local entity in the store, for pruning what a snapshot no longer has
+     */
+    public Set<Long> ids(String store) {
+        return stores.get(store).ids();
+    }
+
+    public void apply(ChangeRecord record) throws JsonProcessingException {
+        Store<?> store = stores.get(record.getStore());
+        if (store == null) {
+            return;
+        }
+        if (ChangeRecord.SAVE.equals(record.getType())) {
+            store.save(changeLog, record);
+        } else if (ChangeRecord.DELETE.equals(record.getType())) {
+            store.delete.accept(record.getId());
+        }
+    }
+
+    public void delete(String store, Long id) {
+        stores.get(store).delete.accept(id);
+    }
+
+    private <T> void register(String name, Class<T> type, Supplier<List<T>> all, Function<T, Long> idOf,
+                              Consumer<T> save, Consumer<Long> delete) {
+        stores.put(name, new Store<>(name, type, all, idOf, save, delete));
+    }
+
+    /**
+     * Updates the catalog skill in place, so users already linked to it see the change
+     */
+    private void applySkill(Skill incoming) {
+        Optional<Skill> existing = skillRepository.findById(incoming.getId());
+        if (existing.isPresent()) {
+            BeanUtils.copyProperties(incoming, existing.get());
+            skillRepository.save(existing.get());
+        } else {
+            skillRepository.save(incoming);
+        }
+    }
+
+    private void applyUser(User user) {
+        relinkSkills(user.getOfferedSkills());
+        relinkSkills(user.getWantedSkills());
+        userRepository.save(user);
+    }
+
+    // Point a copied user's skills back at the replica's shared catalog instances
+    private void relinkSkills(List<UserSkill> userSkills) {
+        for (UserSkill userSkill : userSkills) {
+            if (userSkill.getSkill() != null && userSkill.getSkill().getId() != null) {
+                skillRepository.findById(userSkill.getSkill().getId()).ifPresent(userSkill::setSkill);
+            }
+        }
+    }
+
+    // The repository stamps updatedAt on save; keep the primary's
+    private void applySessionRequest(SessionRequest request) {
+        OffsetDateTime updatedAt = request.getUpdatedAt();
+        sessionRequestRepository.save(request).setUpdatedAt(updatedAt);
+    }
+
+    private static final class Store<T> {
+        private final String name;
+        private final Class<T> type;
+        private final Supplier<List<T>> all;
+        private final Function<T, Long> idOf;
+        private final Consumer<T> save;
+        private final Consumer<Long> delete;
+
+        private Store(String name, Class<T> type, Supplier<List<T>> all, Function<T, Long> idOf,
+                      Consumer<T> save, Consumer<Long> delete) {
+            this.name = name;
+            this.type = type;
+            this.all = all;
+            this.idOf = idOf;
+            this.save = save;
+            this.delete = delete;
+        }
+
+        void snapshot(ChangeLog changeLog, Consumer<ChangeRecord> out) {
+            for (T entity : all.get()) {
+                out.accept(new ChangeRecord(ChangeRecord.SAVE, 0, System.currentTimeMillis(), name,
+                        idOf.apply(entity), changeLog.codec().valueToTree(entity)));
+            }
+        }
+
+        Set<Long> ids() {
+            Set<Long> ids = new HashSet<>();
+            for (T entity : all.get()) {
+                ids.add(idOf.apply(entity));
+            }
+            return ids;
+        }
+
+        void save(ChangeLog changeLog, ChangeRecord record) throws JsonProcessingException {
+            save.accept(changeLog.codec().treeToValue(record.getEntity(), type));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.skillsharing.replication;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.skillsharing.model.RatingStats;
+
+import java.io.IOException;
+
+/**
+ * JSON mapping for replicated entities. Unlike the API mapping it copies every field, including
+ * passwords, tokens and rating aggregates hidden from clients, and ignores getter-only views.
+ */
+final class ReplicationCodec {
+
+    private ReplicationCodec() {
+    }
+
+    static ObjectMapper create(ObjectMapper apiMapper) {
+        ObjectMapper codec = apiMapper.copy();
+        codec.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        codec.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        codec.setAnnotationIntrospector(new JacksonAnnotationIntrospector() {
+            @Override
+            public boolean hasIgnoreMarker(AnnotatedMember member) {
+                return false;
+            }
+
+            @Override
+            public Boolean isIgnorableType(com.fasterxml.jackson.databind.introspect.AnnotatedClass type) {
+                return null;
+            }
+
+            @Override
+            public Object findSerializer(Annotated annotated) {
+                return null;
+            }
+        });
+        codec.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        codec.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        SimpleModule module = new SimpleModule("replication");
+        module.addSerializer(RatingStats.class, new RatingStatsSerializer());
+        module.addDeserializer(RatingStats.class, new RatingStatsDeserializer());
+        codec.registerModule(module);
+        return codec;
+    }
+
+    private static final class RatingStatsSerializer extends JsonSerializer<RatingStats> {
+        @Override
+        public void serialize(RatingStats stats, JsonGenerator json, SerializerProvider provider) throws IOException {
+            json.writeStartObject();
+            json.writeNumberField("sum", stats.sum());
+            json.writeNumberField("count", stats.count());
+            json.writeArrayFieldStart("histogram");
+            for (long count : stats.histogram()) {
+                json.writeNumber(count);
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    private static final class RatingStatsDeserializer extends JsonDeserializer<RatingStats> {
+        @Override
+        public RatingStats deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonNode node = parser.getCodec().readTree(parser);
+            long[] histogram = new long[RatingStats.MAX_STARS];
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = node.path("histogram").path(i).asLong();
+            }
+            RatingStats stats = new RatingStats();
+            stats.adjust(node.path("sum").asLong(), node.path("count").asLong(), histogram);
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.skillsharing.replication;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports a replica DOWN while it is disconnected from the primary or lagging by more than
+ * replication.max-lag-ms, so a load balancer stops sending it reads until it catches up
+ */
+@Component("replication")
+public class ReplicationHealthIndicator implements HealthIndicator {
+
+    @Value("${replication.role:standalone}")
+    private String role;
+
+    @Value("${replication.max-lag-ms:5000}")
+    private long maxLagMs;
+
+    @Autowired
+    private ChangeLog changeLog;
+
+    @Autowired
+    private ReplicationServer replicationServer;
+
+    @Autowired
+    private ReplicaClient replicaClient;
+
+    @Override
+    public Health health() {
+        if (ReplicationRole.PRIMARY.equals(role)) {
+            return Health.up()
+                    .withDetail("role", role)
+                    .withDetail("head", changeLog.head())
+                    .withDetail("replicas", replicationServer.replicas().size())
+                    .build();
+        }
+        if (!ReplicationRole.REPLICA.equals(role)) {
+            return Health.up().withDetail("role", role).build();
+        }
+        long lagMs = replicaClient.lagMs();
+        Health.Builder health = replicaClient.isConnected() && lagMs <= maxLagMs ? Health.up() : Health.down();
+        return health
+                .withDetail("role", role)
+                .withDetail("connected", replicaClient.isConnected())
+                .withDetail("appliedOffset", replicaClient.appliedOffset())
+                .withDetail("primaryHead", replicaClient.primaryHead())
+                .withDetail("lagRecords", replicaClient.lagRecords())
+                .withDetail("lagMs", lagMs)
+                .build();
+    }
+}
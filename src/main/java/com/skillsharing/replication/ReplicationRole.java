@@ -0,0 +1,13 @@
+package com.skillsharing.replication;
+
+/**
+ * Values of replication.role
+ */
+public final class ReplicationRole {
+    public static final String STANDALONE = "standalone";
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private ReplicationRole() {
+    }
+}
@@ -0,0 +1,198 @@
+package com.skillsharing.replication;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ships the change log to replicas when running as primary. The primary greets each connection
+ * with one line, {"challenge":c}; the replica answers with one line,
+ * {"fromOffset":n,"response":r}, where n is the offset after the last record it applied and r
+ * proves it holds the shared secret (see {@link ReplicationTransport}). The primary streams newline-delimited records from there, preceded by a full snapshot when that
+ * offset is no longer retained, and sends a heartbeat with its head offset when idle. A replica
+ * that falls out of the log while connected is sent a fresh snapshot in the same stream.
+ */
+@Component
+public class ReplicationServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationServer.class);
+
+    private static final int BATCH_SIZE = 512;
+    private static final int HANDSHAKE_TIMEOUT_MS = 10000;
+
+    @Value("${replication.role:standalone}")
+    private String role;
+
+    @Value("${replication.port:9099}")
+    private int port;
+
+    @Value("${replication.bind-address:127.0.0.1}")
+    private String bindAddress;
+
+    @Value("${replication.heartbeat-ms:1000}")
+    private long heartbeatMs;
+
+    @Autowired
+    private ChangeLog changeLog;
+
+    @Autowired
+    private ReplicatedStores replicatedStores;
+
+    @Autowired
+    private ReplicationTransport transport;
+
+    // Connected replica address -> next offset it will be sent
+    private final Map<String, Long> replicas = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionIndex = new AtomicInteger();
+    private volatile ServerSocket serverSocket;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!ReplicationRole.PRIMARY.equals(role)) {
+            return;
+        }
+        serverSocket = transport.listen(bindAddress, port);
+        Thread acceptor = new Thread(this::acceptLoop, "replication-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.info("event=replication.listening address={} port={}", bindAddress, port);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+    }
+
+    public Map<String, Long> replicas() {
+        return replicas;
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread shipper = new Thread(() -> serve(socket), "replication-ship-" + connectionIndex.incrementAndGet());
+                shipper.setDaemon(true);
+                shipper.start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    logger.warn("event=replication.accept_failed error={}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        String replica = socket.getRemoteSocketAddress().toString();
+        ObjectMapper codec = changeLog.codec();
+        try (Socket connection = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8))) {
+            connection.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+            String challenge = transport.challenge();
+            out.write(codec.writeValueAsString(Map.of("challenge", challenge)));
+            out.write('\n');
+            out.flush();
+            String handshake = in.readLine();
+            if (handshake == null) {
+                return;
+            }
+            JsonNode request = codec.readTree(handshake);
+            if (!transport.verify(challenge, request.path("response").asText(null))) {
+                logger.warn("event=replication.auth_failed replica={}", replica);
+                return;
+            }
+            connection.setSoTimeout(0);
+            connection.setTcpNoDelay(true);
+            long offset = request.path("fromOffset").asLong(-1);
+            if (offset < 0 || offset > changeLog.head() || changeLog.readFrom(offset, 0, 0) == null) {
+                offset = sendSnapshot(out, codec);
+                logger.info("event=replication.snapshot_sent replica={} offset={}", replica, offset);
+            }
+            logger.info("event=replication.replica_connected replica={} fromOffset={}", replica, offset);
+            long lastHeartbeat = 0;
+            while (!connection.isClosed()) {
+                replicas.put(replica, offset);
+                List<ChangeRecord> batch = changeLog.readFrom(offset, BATCH_SIZE, heartbeatMs);
+                if (batch == null) {
+                    // Fell out of the retained log, or a change it has not seen was lost
+                    logger.warn("event=replication.replica_too_far_behind replica={} offset={}", replica, offset);
+                    offset = sendSnapshot(out, codec);
+                    logger.info("event=replication.snapshot_sent replica={} offset={}", replica, offset);
+                    continue;
+                }
+                for (ChangeRecord record : batch) {
+                    write(out, codec, record);
+                    offset = record.getOffset() + 1;
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastHeartbeat >= heartbeatMs) {
+                    write(out, codec, new ChangeRecord(ChangeRecord.HEARTBEAT, changeLog.head(), now, null, null, null));
+                    lastHeartbeat = now;
+                }
+                out.flush();
+            }
+        } catch (SocketException e) {
+            logger.info("event=replication.replica_disconnected replica={} reason={}", replica, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("event=replication.ship_failed replica={} error={}", replica, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            replicas.remove(replica);
+        }
+    }
+
+    /**
+     * Writes every replicated entity between two markers carrying the head offset read first.
+     * Changes made while the snapshot is taken may already be in it; streaming from that offset
+     * replays them, which is harmless as each record carries the full state.
+     *
+     * @return offset to stream from
+     */
+    private long sendSnapshot(Writer out, ObjectMapper codec) throws IOException {
+        long head = changeLog.head();
+        write(out, codec, new ChangeRecord(ChangeRecord.SNAPSHOT_BEGIN, head, System.currentTimeMillis(), null, null, null));
+        for (String store : replicatedStores.names()) {
+            IOException[] failure = new IOException[1];
+            replicatedStores.snapshot(store, record -> {
+                if (failure[0] == null) {
+                    try {
+                        write(out, codec, record);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+        write(out, codec, new ChangeRecord(ChangeRecord.SNAPSHOT_END, head, System.currentTimeMillis(), null, null, null));
+        out.flush();
+        return head;
+    }
+
+    private static void write(Writer out, ObjectMapper codec, ChangeRecord record) throws IOException {
+        out.write(codec.writeValueAsString(record));
+        out.write('\n');
+    }
+}
@@ -0,0 +1,160 @@
+package com.skillsharing.replication;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Sockets and handshake authentication for the replication stream. The stream carries every
+ * field of every entity, password hashes and OAuth tokens included, so the primary listens on
+ * replication.bind-address (loopback by default), a replica must prove it holds
+ * replication.secret by answering a per-connection challenge with its HMAC, and
+ * replication.tls.enabled encrypts the connection with the configured key and trust stores.
+ */
+@Component
+public class ReplicationTransport {
+
+    private static final String HMAC = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final int NONCE_BYTES = 32;
+    private static final int BACKLOG = 50;
+
+    @Value("${replication.role:standalone}")
+    private String role;
+
+    @Value("${replication.secret:}")
+    private String secret;
+
+    @Value("${replication.tls.enabled:false}")
+    private boolean tls;
+
+    @Value("${replication.tls.key-store:}")
+    private String keyStore;
+
+    @Value("${replication.tls.key-store-password:}")
+    private String keyStorePassword;
+
+    @Value("${replication.tls.trust-store:}")
+    private String trustStore;
+
+    @Value("${replication.tls.trust-store-password:}")
+    private String trustStorePassword;
+
+    private final SecureRandom random = new SecureRandom();
+    private SSLContext sslContext;
+
+    @PostConstruct
+    public void init() throws IOException, GeneralSecurityException {
+        if (ReplicationRole.STANDALONE.equals(role)) {
+            return;
+        }
+        if (secret.getBytes(StandardCharsets.UTF_8).length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("replication.secret must be set to at least " + MIN_SECRET_BYTES
+                    + " bytes, the same on the primary and its replicas, when replication.role is " + role);
+        }
+        if (tls) {
+            sslContext = sslContext();
+        }
+    }
+
+    public ServerSocket listen(String bindAddress, int port) throws IOException {
+        InetAddress address = InetAddress.getByName(bindAddress);
+        if (sslContext == null) {
+            return new ServerSocket(port, BACKLOG, address);
+        }
+        return sslContext.getServerSocketFactory().createServerSocket(port, BACKLOG, address);
+    }
+
+    public Socket connect(String host, int port, int timeoutMs) throws IOException {
+        if (sslContext == null) {
+            Socket socket = new Socket();
+            socket.connect(new InetSocketAddress(host, port), timeoutMs);
+            return socket;
+        }
+        SSLSocket socket = (SSLSocket) sslContext.getSocketFactory().createSocket();
+        // Checks the primary's certificate names the host connected to
+        SSLParameters parameters = socket.getSSLParameters();
+        parameters.setEndpointIdentificationAlgorithm("HTTPS");
+        socket.setSSLParameters(parameters);
+        socket.connect(new InetSocketAddress(host, port), timeoutMs);
+        socket.startHandshake();
+        return socket;
+    }
+
+    /**
+     * Fresh random challenge for one connection
+     */
+    public String challenge() {
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        return Base64.getEncoder().encodeToString(nonce);
+    }
+
+    /**
+     * Answer to a challenge: its HMAC under the shared secret, so the secret never crosses the wire
+     */
+    public String respond(String challenge) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC));
+            return Base64.getEncoder().encodeToString(mac.doFinal(challenge.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    public boolean verify(String challenge, String response) {
+        return response != null && MessageDigest.isEqual(
+                respond(challenge).getBytes(StandardCharsets.UTF_8), response.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private SSLContext sslContext() throws IOException, GeneralSecurityException {
+        KeyManagerFactory keyManagers = null;
+        if (!keyStore.isEmpty()) {
+            keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagers.init(load(keyStore, keyStorePassword), keyStorePassword.toCharArray());
+        } else if (ReplicationRole.PRIMARY.equals(role)) {
+            throw new IllegalStateException("replication.tls.key-store is required on a primary when replication.tls.enabled is set");
+        }
+        // Without a trust store the JVM's default CAs are trusted
+        TrustManagerFactory trustManagers = null;
+        if (!trustStore.isEmpty()) {
+            trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagers.init(load(trustStore, trustStorePassword));
+        }
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keyManagers != null ? keyManagers.getKeyManagers() : null,
+                trustManagers != null ? trustManagers.getTrustManagers() : null, random);
+        return context;
+    }
+
+    private static KeyStore load(String path, String password) throws IOException, GeneralSecurityException {
+        KeyStore store = KeyStore.getInstance(KeyStore.getDefaultType());
+        try (InputStream in = Files.newInputStream(Path.of(path))) {
+            store.load(in, password.toCharArray());
+        }
+        return store;
+    }
+}
@@ -0,0 +1,9 @@
+package com.skillsharing.repository;
+
+/**
+ * Source of entity IDs shared by the repositories
+ */
+public interface IdGenerator {
+
+    long nextId();
+}
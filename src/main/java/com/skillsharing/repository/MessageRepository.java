@@ -1,23 +1,69 @@
 package com.skillsharing.repository;
 
+import com.skillsharing.events.ChangeEvent;
+import com.skillsharing.events.ChangeEventBus;
+import com.skillsharing.index.ConsistentHashRing;
 import com.skillsharing.model.Message;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PostConstruct;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 @Repository
 public class MessageRepository {
-    private final Map<Long, Message> messages = new ConcurrentHashMap<>();
-    private final AtomicLong idCounter = new AtomicLong(1);
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ChangeEventBus changeEventBus;
+
+    // Routed by conversation, so a conversation is read from a single partition
+    private ShardedMap<Message> messages;
+    
+    // Unread bookkeeping: receiverId -> total, and receiverId -> senderId -> count / unread message IDs
+    private final Map<Long, LongAdder> unreadByReceiver = new ConcurrentHashMap<>();
+    private final Map<Long, Map<Long, LongAdder>> unreadByConversation = new ConcurrentHashMap<>();
+    private final Map<Long, Map<Long, ConcurrentSkipListSet<Long>>> unreadIdsByConversation = new ConcurrentHashMap<>();
+
+    // Per-user latest message of each conversation, ordered by recency
+    private final Map<Long, Inbox> inboxes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        messages = shardRouter.newStore("messages");
+    }
     
     public Message save(Message message) {
         if (message.getId() == null) {
-            message.setId(idCounter.getAndIncrement());
+            message.setId(idGenerator.nextId());
+        }
+        // Not just unassigned IDs: replicas receive new messages with their IDs already set
+        Message previous = messages.put(message.getId(),
+                ConsistentHashRing.conversationKey(message.getSenderId(), message.getReceiverId()), message);
+        boolean isNew = previous == null;
+        if (isNew && !Boolean.TRUE.equals(message.getIsRead())) {
+            unreadIds(message.getReceiverId(), message.getSenderId()).add(message.getId());
+            unreadByReceiver.computeIfAbsent(message.getReceiverId(), id -> new LongAdder()).increment();
+            conversationCounter(message.getReceiverId(), message.getSenderId()).increment();
+        }
+        if (!isNew && Boolean.TRUE.equals(message.getIsRead())
+                && unreadIds(message.getReceiverId(), message.getSenderId()).remove(message.getId())) {
+            applyRead(message);
         }
-        messages.put(message.getId(), message);
+        if (previous != message) {
+            inbox(message.getSenderId()).record(message.getReceiverId(), message);
+            inbox(message.getReceiverId()).record(message.getSenderId(), message);
+        }
+        changeEventBus.publishSave(ChangeEvent.MESSAGES, message.getId(), isNew, message);
         return message;
     }
     
@@ -25,18 +71,147 @@ public class MessageRepository {
         return Optional.ofNullable(messages.get(id));
     }
     
+    public List<Message> findAll() {
+        return messages.values();
+    }
+    
     public List<Message> findConversation(Long user1Id, Long user2Id) {
-        return messages.values().stream()
-                .filter(msg -> (msg.getSenderId().equals(user1Id) && msg.getReceiverId().equals(user2Id)) ||
-                              (msg.getSenderId().equals(user2Id) && msg.getReceiverId().equals(user1Id)))
-                .sorted(Comparator.comparing(Message::getTimestamp))
+        return messages.findRoutedTo(ConsistentHashRing.conversationKey(user1Id, user2Id),
+                        msg -> (msg.getSenderId().equals(user1Id) && msg.getReceiverId().equals(user2Id)) ||
+                               (msg.getSenderId().equals(user2Id) && msg.getReceiverId().equals(user1Id)))
+                .stream()
+                .sorted(Comparator.comparing(Message::getId))
                 .collect(Collectors.toList());
     }
     
     public List<Message> findByReceiverId(Long receiverId) {
         return messages.values().stream()
                 .filter(msg -> msg.getReceiverId().equals(receiverId))
-                .sorted(Comparator.comparing(Message::getTimestamp).reversed())
+                .sorted(Comparator.comparing(Message::getId).reversed())
                 .collect(Collectors.toList());
     }
+    
+    /**
+     * Marks a single message as read. Only the caller that removes the ID from the unread set
+     * flips the flag and decrements the counters, so concurrent calls never double-count.
+     */
+    public Optional<Message> markAsRead(Long id) {
+        Message message = messages.get(id);
+        if (message == null) {
+            return Optional.empty();
+        }
+        if (unreadIds(message.getReceiverId(), message.getSenderId()).remove(id)) {
+            applyRead(message);
+            changeEventBus.publishSave(ChangeEvent.MESSAGES, id, false, message);
+        }
+        return Optional.of(message);
+    }
+    
+    /**
+     * Marks every unread message from senderId to receiverId with an ID up to and including
+     * upToMessageId as read, visiting only the unread messages in that range
+     */
+    public int markConversationAsRead(Long receiverId, Long senderId, Long upToMessageId) {
+        ConcurrentSkipListSet<Long> unread = unreadIds(receiverId, senderId);
+        int marked = 0;
+        for (Long id : unread.headSet(upToMessageId, true)) {
+            Message message = messages.get(id);
+            if (message != null && unread.remove(id)) {
+                applyRead(message);
+                changeEventBus.publishSave(ChangeEvent.MESSAGES, id, false, message);
+                marked++;
+            }
+        }
+        return marked;
+    }
+    
+    public long countUnread(Long receiverId) {
+        LongAdder counter = unreadByReceiver.get(receiverId);
+        return counter != null ? counter.sum() : 0;
+    }
+    
+    public long countUnread(Long receiverId, Long senderId) {
+        Map<Long, LongAdder> counters = unreadByConversation.get(receiverId);
+        LongAdder counter = counters != null ? counters.get(senderId) : null;
+        return counter != null ? counter.sum() : 0;
+    }
+    
+    /**
+     * Returns the latest message of each of the user's conversations, most recent first
+     */
+    public List<Message> findLatestPerConversation(Long userId, int offset, int limit) {
+        Inbox inbox = inboxes.get(userId);
+        return inbox != null ? inbox.page(offset, limit) : new ArrayList<>();
+    }
+    
+    public Map<Long, Long> countUnreadByConversation(Long receiverId) {
+        Map<Long, LongAdder> counters = unreadByConversation.get(receiverId);
+        Map<Long, Long> counts = new HashMap<>();
+        if (counters != null) {
+            counters.forEach((senderId, counter) -> {
+                long count = counter.sum();
+                if (count > 0) {
+                    counts.put(senderId, count);
+                }
+            });
+        }
+        return counts;
+    }
+    
+    public long count() {
+        return messages.size();
+    }
+    
+    // Callers publish the change; save does so once for the whole update
+    private void applyRead(Message message) {
+        message.setIsRead(true);
+        unreadByReceiver.computeIfAbsent(message.getReceiverId(), id -> new LongAdder()).decrement();
+        conversationCounter(message.getReceiverId(), message.getSenderId()).decrement();
+    }
+    
+    private ConcurrentSkipListSet<Long> unreadIds(Long receiverId, Long senderId) {
+        return unreadIdsByConversation
+                .computeIfAbsent(receiverId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(senderId, id -> new ConcurrentSkipListSet<>());
+    }
+    
+    private LongAdder conversationCounter(Long receiverId, Long senderId) {
+        return unreadByConversation
+                .computeIfAbsent(receiverId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(senderId, id -> new LongAdder());
+    }
+    
+    private Inbox inbox(Long userId) {
+        return inboxes.computeIfAbsent(userId, id -> new Inbox());
+    }
+    
+    private static final class Inbox {
+        private final Map<Long, Message> latestByCounterpart = new HashMap<>();
+        // Message IDs grow with time, so ordering by the latest ID orders conversations by recency
+        private final NavigableMap<Long, Message> latestById = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+    
+        synchronized void record(Long counterpartId, Message message) {
+            Message previous = latestByCounterpart.get(counterpartId);
+            if (previous != null) {
+                if (previous.getId() > message.getId()) {
+                    return;
+                }
+                latestById.remove(previous.getId());
+            }
+            latestByCounterpart.put(counterpartId, message);
+            latestById.put(message.getId(), message);
+        }
+    
+        List<Message> page(int offset, int limit) {
+            List<Message> page = new ArrayList<>(limit);
+            Iterator<Message> iterator = latestById.values().iterator();
+            for (int skipped = 0; skipped < offset && iterator.hasNext(); skipped++) {
+                iterator.next();
+            }
+            while (page.size() < limit && iterator.hasNext()) {
+                page.add(iterator.next());
+            }
+            return page;
+        }
+    }
 }
@@ -0,0 +1,59 @@
+package com.skillsharing.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/partitions: lists the store partitions, and adds (POST /{name}) or removes
+ * (DELETE /{name}) one, moving the affected entries before it returns
+ */
+@Component
+@Endpoint(id = "partitions")
+public class PartitionsEndpoint {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @ReadOperation
+    public Map<String, Object> partitions() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("partitions", shardRouter.partitions());
+        body.put("stores", shardRouter.partitionSizes());
+        return body;
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> addPartition(@Selector String name) {
+        Map<String, Integer> moved = shardRouter.addPartition(name);
+        return new WebEndpointResponse<>(result(name, moved));
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Map<String, Object>> removePartition(@Selector String name) {
+        try {
+            Map<String, Integer> moved = shardRouter.removePartition(name);
+            return new WebEndpointResponse<>(result(name, moved));
+        } catch (IllegalStateException e) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("error", e.getMessage());
+            return new WebEndpointResponse<>(body, WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+    }
+
+    private Map<String, Object> result(String name, Map<String, Integer> moved) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("partition", name);
+        body.put("moved", moved);
+        body.put("partitions", shardRouter.partitions());
+        return body;
+    }
+}
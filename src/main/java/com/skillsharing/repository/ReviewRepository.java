@@ -1,23 +1,40 @@
 package com.skillsharing.repository;
 
+import com.skillsharing.events.ChangeEvent;
+import com.skillsharing.events.ChangeEventBus;
+import com.skillsharing.model.RatingStats;
 import com.skillsharing.model.Review;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 @Repository
 public class ReviewRepository {
     private final Map<Long, Review> reviews = new ConcurrentHashMap<>();
-    private final AtomicLong idCounter = new AtomicLong(1);
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private ChangeEventBus changeEventBus;
+    
+    // Reviews each user has received, newest first, plus a running window over the latest ratings
+    private final Map<Long, ReceivedReviews> byReviewedUser = new ConcurrentHashMap<>();
+    
+    public static final int RECENT_WINDOW = 20;
     
     public Review save(Review review) {
         if (review.getId() == null) {
-            review.setId(idCounter.getAndIncrement());
+            review.setId(idGenerator.nextId());
         }
-        reviews.put(review.getId(), review);
+        // Not just unassigned IDs: replicas receive new reviews with their IDs already set
+        Review previous = reviews.put(review.getId(), review);
+        if (previous == null && review.getReviewedUserId() != null) {
+            byReviewedUser.computeIfAbsent(review.getReviewedUserId(), id -> new ReceivedReviews()).add(review);
+        }
+        changeEventBus.publishSave(ChangeEvent.REVIEWS, review.getId(), previous == null, review);
         return review;
     }
     
@@ -26,12 +43,78 @@ public class ReviewRepository {
     }
     
     public List<Review> findByReviewedUserId(Long userId) {
-        return reviews.values().stream()
-                .filter(review -> review.getReviewedUserId().equals(userId))
-                .collect(Collectors.toList());
+        ReceivedReviews received = byReviewedUser.get(userId);
+        return received != null ? new ArrayList<>(received.byId.values()) : new ArrayList<>();
+    }
+    
+    /**
+     * Returns up to limit reviews of the user, newest first, with IDs below beforeId (all when null)
+     */
+    public List<Review> findByReviewedUserId(Long userId, Long beforeId, int limit) {
+        List<Review> page = new ArrayList<>(limit);
+        ReceivedReviews received = byReviewedUser.get(userId);
+        if (received == null) {
+            return page;
+        }
+        NavigableMap<Long, Review> older = beforeId != null ? received.byId.tailMap(beforeId, false) : received.byId;
+        for (Review review : older.values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(review);
+        }
+        return page;
+    }
+    
+    /**
+     * Average of the user's latest {@link #RECENT_WINDOW} ratings, or 0 when they have none
+     */
+    public double recentAverage(Long userId) {
+        ReceivedReviews received = byReviewedUser.get(userId);
+        return received != null ? received.recentAverage() : 0.0;
+    }
+    
+    public int recentCount(Long userId) {
+        ReceivedReviews received = byReviewedUser.get(userId);
+        return received != null ? received.recentCount() : 0;
     }
     
     public List<Review> findAll() {
         return new ArrayList<>(reviews.values());
     }
+
+    public long count() {
+        return reviews.size();
+    }
+    
+    private static final class ReceivedReviews {
+        // Review IDs grow with time, so descending ID order is newest first
+        private final ConcurrentSkipListMap<Long, Review> byId = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+        private final int[] window = new int[RECENT_WINDOW];
+        private int next;
+        private int filled;
+        private long windowSum;
+    
+        void add(Review review) {
+            byId.put(review.getId(), review);
+            if (review.getRating() != null) {
+                recordRating(RatingStats.clamp(review.getRating()));
+            }
+        }
+    
+        synchronized void recordRating(int rating) {
+            windowSum += rating - window[next];
+            window[next] = rating;
+            next = (next + 1) % RECENT_WINDOW;
+            filled = Math.min(filled + 1, RECENT_WINDOW);
+        }
+    
+        synchronized double recentAverage() {
+            return filled == 0 ? 0.0 : (double) windowSum / filled;
+        }
+    
+        synchronized int recentCount() {
+            return filled;
+        }
+    }
 }
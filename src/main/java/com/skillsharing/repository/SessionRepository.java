@@ -1,23 +1,40 @@
 package com.skillsharing.repository;
 
+import com.skillsharing.events.ChangeEvent;
+import com.skillsharing.events.ChangeEventBus;
 import com.skillsharing.model.Session;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PostConstruct;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Repository
 public class SessionRepository {
-    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
-    private final AtomicLong idCounter = new AtomicLong(1);
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ChangeEventBus changeEventBus;
+
+    // Routed by teacher, so a teacher's sessions share a partition
+    private ShardedMap<Session> sessions;
+
+    @PostConstruct
+    public void init() {
+        sessions = shardRouter.newStore("sessions");
+    }
     
     public Session save(Session session) {
         if (session.getId() == null) {
-            session.setId(idCounter.getAndIncrement());
+            session.setId(idGenerator.nextId());
         }
-        sessions.put(session.getId(), session);
+        Session previous = sessions.put(session.getId(), session.getTeacherId(), session);
+        changeEventBus.publishSave(ChangeEvent.SESSIONS, session.getId(), previous == null, session);
         return session;
     }
     
@@ -26,13 +43,11 @@ public class SessionRepository {
     }
     
     public List<Session> findAll() {
-        return new ArrayList<>(sessions.values());
+        return sessions.values();
     }
     
     public List<Session> findByTeacherId(Long teacherId) {
-        return sessions.values().stream()
-                .filter(session -> session.getTeacherId().equals(teacherId))
-                .collect(Collectors.toList());
+        return sessions.findRoutedTo(teacherId, session -> teacherId.equals(session.getTeacherId()));
     }
     
     public List<Session> findByLearnerId(Long learnerId) {
@@ -42,7 +57,10 @@ public class SessionRepository {
     }
 
     public void deleteById(Long id) {
-        sessions.remove(id);
+        Session removed = sessions.remove(id);
+        if (removed != null) {
+            changeEventBus.publishDelete(ChangeEvent.SESSIONS, id, removed);
+        }
     }
 
     public List<Session> findByStatus(String status) {
@@ -50,4 +68,8 @@ public class SessionRepository {
                 .filter(session -> status.equals(session.getStatus()))
                 .collect(Collectors.toList());
     }
+
+    public long count() {
+        return sessions.size();
+    }
 }
@@ -1,27 +1,44 @@
 package com.skillsharing.repository;
 
+import com.skillsharing.events.ChangeEvent;
+import com.skillsharing.events.ChangeEventBus;
 import com.skillsharing.model.SessionRequest;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PostConstruct;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Repository
 public class SessionRequestRepository {
-    private final Map<Long, SessionRequest> sessionRequests = new ConcurrentHashMap<>();
-    private final AtomicLong idCounter = new AtomicLong(1);
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ChangeEventBus changeEventBus;
+
+    // Routed by teacher, so the requests awaiting a teacher's approval share a partition
+    private ShardedMap<SessionRequest> sessionRequests;
+
+    @PostConstruct
+    public void init() {
+        sessionRequests = shardRouter.newStore("sessionRequests");
+    }
 
     public SessionRequest save(SessionRequest sessionRequest) {
         if (sessionRequest.getId() == null) {
-            sessionRequest.setId(idCounter.getAndIncrement());
+            sessionRequest.setId(idGenerator.nextId());
         }
         if (sessionRequest.getCreatedAt() == null) {
             sessionRequest.setCreatedAt(java.time.OffsetDateTime.now());
         }
         sessionRequest.setUpdatedAt(java.time.OffsetDateTime.now());
-        sessionRequests.put(sessionRequest.getId(), sessionRequest);
+        SessionRequest previous = sessionRequests.put(sessionRequest.getId(), sessionRequest.getTeacherId(), sessionRequest);
+        changeEventBus.publishSave(ChangeEvent.SESSION_REQUESTS, sessionRequest.getId(), previous == null, sessionRequest);
         return sessionRequest;
     }
 
@@ -30,13 +47,11 @@ public class SessionRequestRepository {
     }
 
     public List<SessionRequest> findAll() {
-        return new ArrayList<>(sessionRequests.values());
+        return sessionRequests.values();
     }
 
     public List<SessionRequest> findByTeacherId(Long teacherId) {
-        return sessionRequests.values().stream()
-                .filter(request -> request.getTeacherId().equals(teacherId))
-                .collect(Collectors.toList());
+        return sessionRequests.findRoutedTo(teacherId, request -> teacherId.equals(request.getTeacherId()));
     }
 
     public List<SessionRequest> findByLearnerId(Long learnerId) {
@@ -46,9 +61,8 @@ public class SessionRequestRepository {
     }
 
     public List<SessionRequest> findByTeacherIdAndStatus(Long teacherId, String status) {
-        return sessionRequests.values().stream()
-                .filter(request -> request.getTeacherId().equals(teacherId) && request.getStatus().equals(status))
-                .collect(Collectors.toList());
+        return sessionRequests.findRoutedTo(teacherId,
+                request -> teacherId.equals(request.getTeacherId()) && request.getStatus().equals(status));
     }
 
     public List<SessionRequest> findByLearnerIdAndStatus(Long learnerId, String status) {
@@ -56,4 +70,8 @@ public class SessionRequestRepository {
                 .filter(request -> request.getLearnerId().equals(learnerId) && request.getStatus().equals(status))
                 .collect(Collectors.toList());
     }
+
+    public long count() {
+        return sessionRequests.size();
+    }
 }
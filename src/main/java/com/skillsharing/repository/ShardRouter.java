@@ -0,0 +1,103 @@
+package com.skillsharing.repository;
+
+import com.skillsharing.index.ConsistentHashRing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Owns the consistent-hash ring of in-process partitions that the repositories' stores are split
+ * across, and rebalances every store when a partition joins or leaves. Users, and the sessions
+ * and requests they teach, route by user ID; messages route by conversation.
+ */
+@Component
+public class ShardRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardRouter.class);
+
+    @Value("${sharding.partitions:4}")
+    private int partitionCount;
+
+    @Value("${sharding.virtual-nodes:128}")
+    private int virtualNodes;
+
+    private final List<ShardedMap<?>> stores = new CopyOnWriteArrayList<>();
+    private volatile ConsistentHashRing ring;
+
+    @PostConstruct
+    public void init() {
+        if (partitionCount < 1) {
+            throw new IllegalStateException("sharding.partitions must be at least 1");
+        }
+        List<String> partitions = new ArrayList<>();
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add("partition-" + i);
+        }
+        ring = new ConsistentHashRing(partitions, virtualNodes);
+    }
+
+    public synchronized <V> ShardedMap<V> newStore(String name) {
+        ShardedMap<V> store = new ShardedMap<>(name, ring);
+        stores.add(store);
+        return store;
+    }
+
+    public Set<String> partitions() {
+        return ring.nodes();
+    }
+
+    /**
+     * Entities per partition of every store, by store name
+     */
+    public Map<String, Map<String, Integer>> partitionSizes() {
+        Map<String, Map<String, Integer>> sizes = new TreeMap<>();
+        for (ShardedMap<?> store : stores) {
+            sizes.put(store.name(), store.partitionSizes());
+        }
+        return sizes;
+    }
+
+    /**
+     * Adds the partition and moves the entries it now owns into it
+     *
+     * @return entries moved, by store name; empty if the partition already existed
+     */
+    public synchronized Map<String, Integer> addPartition(String partition) {
+        if (ring.nodes().contains(partition)) {
+            return Collections.emptyMap();
+        }
+        return rebalance(ring.withNode(partition), "added", partition);
+    }
+
+    /**
+     * Removes the partition and moves its entries to the partitions that now own them
+     *
+     * @return entries moved, by store name; empty if there was no such partition
+     */
+    public synchronized Map<String, Integer> removePartition(String partition) {
+        if (!ring.nodes().contains(partition)) {
+            return Collections.emptyMap();
+        }
+        if (ring.nodes().size() == 1) {
+            throw new IllegalStateException("Cannot remove the last partition");
+        }
+        return rebalance(ring.withoutNode(partition), "removed", partition);
+    }
+
+    private Map<String, Integer> rebalance(ConsistentHashRing next, String change, String partition) {
+        Map<String, Integer> movedByStore = new TreeMap<>();
+        for (ShardedMap<?> store : stores) {
+            int moved = store.rebalance(next);
+            movedByStore.put(store.name(), moved);
+            logger.info("event=shard.rebalanced store={} partition={} change={} moved={} total={}",
+                    store.name(), partition, change, moved, store.size());
+        }
+        ring = next;
+        return movedByStore;
+    }
+}
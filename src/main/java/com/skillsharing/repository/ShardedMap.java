@@ -0,0 +1,281 @@
+package com.skillsharing.repository;
+
+import com.skillsharing.index.ConsistentHashRing;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Predicate;
+
+/**
+ * Entity store split into partitions by a routing key, e.g. a session's teacher, so everything
+ * routed by the same key lives in one partition and per-owner queries scan only that partition.
+ * Entities routed by their own ID need no bookkeeping; others remember their routing key.
+ *
+ * <p>Reads and writes are optimistic: they take no lock, and only fall back to the shared lock
+ * if a rebalance, which takes it exclusively to move entries between partitions, ran meanwhile.
+ * A write overlapping a rebalance may have landed in a partition that was already copied, so it
+ * is repeated under the shared lock, clearing the ID from every other partition.
+ *
+ * <p>All partitions live in this JVM, so partitioning narrows scans and spreads map contention;
+ * it does not spread load across nodes. Read replicas are what add capacity on other machines.
+ */
+public class ShardedMap<V> {
+
+    private final String name;
+    private final Map<Long, Long> routingKeys = new ConcurrentHashMap<>();
+    // Until an entity routes by something other than its ID, lookups skip routingKeys
+    private volatile boolean keyed;
+    private final StampedLock lock = new StampedLock();
+    private volatile Layout<V> layout;
+
+    ShardedMap(String name, ConsistentHashRing ring) {
+        this.name = name;
+        Map<String, Map<Long, V>> partitions = new HashMap<>();
+        ring.nodes().forEach(node -> partitions.put(node, new ConcurrentHashMap<>()));
+        this.layout = new Layout<>(ring, partitions);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public V get(Long id) {
+        long stamp = lock.tryOptimisticRead();
+        V value = partitionOf(id).get(id);
+        if (lock.validate(stamp)) {
+            return value;
+        }
+        stamp = lock.readLock();
+        try {
+            return partitionOf(id).get(id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public V put(Long id, V value) {
+        return put(id, id, value);
+    }
+
+    /**
+     * Stores the entity in the partition owning routingKey, moving it if its key changed.
+     * Entities without a routing key route by their own ID.
+     *
+     * @return the entity previously stored under the ID, or null
+     */
+    public V put(Long id, Long routingKeyOrNull, V value) {
+        long routingKey = routingKeyOrNull != null ? routingKeyOrNull : id;
+        if (routingKey != id && !keyed) {
+            keyed = true;
+        }
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            V replaced = place(id, routingKey, value);
+            if (lock.validate(stamp)) {
+                return replaced;
+            }
+            stamp = lock.readLock();
+            try {
+                clearOutside(id, partition(routingKey));
+                place(id, routingKey, value);
+                return replaced;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return place(id, routingKey, value);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public V remove(Long id) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            V removed = partitionOf(id).remove(id);
+            routingKeys.remove(id);
+            if (lock.validate(stamp)) {
+                return removed;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            V removed = partitionOf(id).remove(id);
+            routingKeys.remove(id);
+            V stray = clearOutside(id, null);
+            return removed != null ? removed : stray;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Entities matching the filter, looking only in the partition owning routingKey
+     */
+    public List<V> findRoutedTo(long routingKey, Predicate<? super V> filter) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            List<V> found = scan(partition(routingKey), filter);
+            if (lock.validate(stamp)) {
+                return found;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return scan(partition(routingKey), filter);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public List<V> values() {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            List<V> values = allValues();
+            if (lock.validate(stamp)) {
+                return values;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return allValues();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Map<Long, V> partition : layout.partitions.values()) {
+            size += partition.size();
+        }
+        return size;
+    }
+
+    /**
+     * Entities per partition, for checking balance
+     */
+    public Map<String, Integer> partitionSizes() {
+        Map<String, Integer> sizes = new TreeMap<>();
+        layout.partitions.forEach((node, partition) -> sizes.put(node, partition.size()));
+        return sizes;
+    }
+
+    /**
+     * Switches to the new ring and moves only the entries whose owner changed
+     *
+     * @return number of entries moved
+     */
+    int rebalance(ConsistentHashRing next) {
+        long stamp = lock.writeLock();
+        try {
+            Map<String, Map<Long, V>> rebalanced = new HashMap<>();
+            for (String node : next.nodes()) {
+                rebalanced.put(node, layout.partitions.getOrDefault(node, new ConcurrentHashMap<>()));
+            }
+            int moved = 0;
+            for (Map.Entry<String, Map<Long, V>> partition : layout.partitions.entrySet()) {
+                Iterator<Map.Entry<Long, V>> entries = partition.getValue().entrySet().iterator();
+                while (entries.hasNext()) {
+                    Map.Entry<Long, V> entry = entries.next();
+                    String owner = next.ownerOf(routingKeyOf(entry.getKey()));
+                    if (!owner.equals(partition.getKey())) {
+                        rebalanced.get(owner).put(entry.getKey(), entry.getValue());
+                        entries.remove();
+                        moved++;
+                    }
+                }
+            }
+            layout = new Layout<>(next, rebalanced);
+            return moved;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Store, then repoint, then drop the old copy, so a concurrent get never misses a moving entity
+    private V place(Long id, long routingKey, V value) {
+        long previous = routingKeyOf(id);
+        Map<Long, V> target = partition(routingKey);
+        V replaced = target.put(id, value);
+        if (routingKey == id) {
+            routingKeys.remove(id);
+        } else {
+            routingKeys.put(id, routingKey);
+        }
+        if (partition(previous) != target) {
+            V moved = partition(previous).remove(id);
+            if (replaced == null) {
+                replaced = moved;
+            }
+        }
+        return replaced;
+    }
+
+    /**
+     * Removes the ID from every partition but keep, undoing a write that raced with a rebalance
+     *
+     * @return a removed copy, or null
+     */
+    private V clearOutside(Long id, Map<Long, V> keep) {
+        V removed = null;
+        for (Map<Long, V> partition : layout.partitions.values()) {
+            if (partition != keep) {
+                V stray = partition.remove(id);
+                if (stray != null) {
+                    removed = stray;
+                }
+            }
+        }
+        return removed;
+    }
+
+    private List<V> scan(Map<Long, V> partition, Predicate<? super V> filter) {
+        List<V> found = new ArrayList<>();
+        for (V value : partition.values()) {
+            if (filter.test(value)) {
+                found.add(value);
+            }
+        }
+        return found;
+    }
+
+    private List<V> allValues() {
+        List<V> values = new ArrayList<>();
+        layout.partitions.values().forEach(partition -> values.addAll(partition.values()));
+        return values;
+    }
+
+    private long routingKeyOf(Long id) {
+        if (!keyed) {
+            return id;
+        }
+        Long routingKey = routingKeys.get(id);
+        return routingKey != null ? routingKey : id;
+    }
+
+    private Map<Long, V> partitionOf(Long id) {
+        return partition(routingKeyOf(id));
+    }
+
+    private Map<Long, V> partition(long routingKey) {
+        Layout<V> current = layout;
+        return current.partitions.get(current.ring.ownerOf(routingKey));
+    }
+
+    /**
+     * Ring and partitions swapped together, so a lookup never pairs a ring with the wrong partitions
+     */
+    private static final class Layout<V> {
+        private final ConsistentHashRing ring;
+        private final Map<String, Map<Long, V>> partitions;
+
+        private Layout(ConsistentHashRing ring, Map<String, Map<Long, V>> partitions) {
+            this.ring = ring;
+            this.partitions = partitions;
+        }
+    }
+}
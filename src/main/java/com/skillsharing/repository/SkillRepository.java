@@ -1,23 +1,60 @@
 package com.skillsharing.repository;
 
+import com.skillsharing.events.ChangeEvent;
+import com.skillsharing.events.ChangeEventBus;
+import com.skillsharing.index.SkillIndex;
 import com.skillsharing.model.Skill;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Repository
 public class SkillRepository {
     private final Map<Long, Skill> skills = new ConcurrentHashMap<>();
-    private final AtomicLong idCounter = new AtomicLong(1);
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private ChangeEventBus changeEventBus;
+    
+    // Canonical catalog: normalized (name, category) -> the one shared skill
+    private final Map<String, Skill> byKey = new ConcurrentHashMap<>();
+    
+    /**
+     * Returns the catalog skill for the name and category, creating it on first use.
+     * Every user offering or wanting the same skill shares this one instance.
+     */
+    public Skill intern(String name, String category, String description) {
+        return byKey.computeIfAbsent(keyOf(name, category), key -> {
+            Skill skill = new Skill(idGenerator.nextId(), name.trim(),
+                    category != null ? category.trim() : null, description, null);
+            skills.put(skill.getId(), skill);
+            changeEventBus.publishSave(ChangeEvent.SKILLS, skill.getId(), true, skill);
+            return skill;
+        });
+    }
+    
+    public Optional<Skill> findByKey(String name, String category) {
+        return Optional.ofNullable(byKey.get(keyOf(name, category)));
+    }
+    
+    public static String keyOf(String name, String category) {
+        return SkillIndex.canonicalName(name) + '\u0000' + SkillIndex.canonicalName(category);
+    }
     
     public Skill save(Skill skill) {
         if (skill.getId() == null) {
-            skill.setId(idCounter.getAndIncrement());
+            skill.setId(idGenerator.nextId());
+        }
+        Skill previous = skills.put(skill.getId(), skill);
+        if (previous != null && previous != skill) {
+            byKey.remove(keyOf(previous.getName(), previous.getCategory()), previous);
         }
-        skills.put(skill.getId(), skill);
+        byKey.putIfAbsent(keyOf(skill.getName(), skill.getCategory()), skill);
+        changeEventBus.publishSave(ChangeEvent.SKILLS, skill.getId(), previous == null, skill);
         return skill;
     }
     
@@ -31,7 +68,7 @@ public class SkillRepository {
     
     public List<Skill> findByCategory(String category) {
         return skills.values().stream()
-                .filter(skill -> skill.getCategory().equalsIgnoreCase(category))
+                .filter(skill -> category.equalsIgnoreCase(skill.getCategory()))
                 .collect(Collectors.toList());
     }
     
@@ -40,4 +77,16 @@ public class SkillRepository {
                 .filter(skill -> skill.getName().toLowerCase().contains(name.toLowerCase()))
                 .collect(Collectors.toList());
     }
+
+    public void deleteById(Long id) {
+        Skill removed = skills.remove(id);
+        if (removed != null) {
+            byKey.remove(keyOf(removed.getName(), removed.getCategory()), removed);
+            changeEventBus.publishDelete(ChangeEvent.SKILLS, id, removed);
+        }
+    }
+    
+    public long count() {
+        return skills.size();
+    }
 }
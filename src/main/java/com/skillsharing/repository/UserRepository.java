@@ -1,23 +1,54 @@
 package com.skillsharing.repository;
 
+import com.skillsharing.events.ChangeEvent;
+import com.skillsharing.events.ChangeEventBus;
+import com.skillsharing.index.BloomFilter;
+import com.skillsharing.index.PrefixTrie;
 import com.skillsharing.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PostConstruct;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
 
 @Repository
 public class UserRepository {
-    private final Map<Long, User> users = new ConcurrentHashMap<>();
-    private final AtomicLong idCounter = new AtomicLong(1);
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ChangeEventBus changeEventBus;
+
+    private ShardedMap<User> users;
+
+    private static final long INITIAL_USERNAME_CAPACITY = 1 << 16;
+    private static final double USERNAME_FALSE_POSITIVE_RATE = 0.01;
+
+    // Exact username index, with a Bloom filter in front so most availability checks stop there
+    // and a trie for autocomplete. Maintained under usernameLock; reads are lock-free.
+    private final Map<String, Long> idsByUsername = new ConcurrentHashMap<>();
+    private final Map<Long, String> usernamesById = new ConcurrentHashMap<>();
+    private final PrefixTrie usernameTrie = new PrefixTrie();
+    private final Object usernameLock = new Object();
+    private volatile BloomFilter usernameFilter = new BloomFilter(INITIAL_USERNAME_CAPACITY, USERNAME_FALSE_POSITIVE_RATE);
+    private long usernameInsertions;
+
+    @PostConstruct
+    public void init() {
+        users = shardRouter.newStore("users");
+    }
     
     public User save(User user) {
         if (user.getId() == null) {
-            user.setId(idCounter.getAndIncrement());
+            user.setId(idGenerator.nextId());
         }
-        users.put(user.getId(), user);
+        User previous = users.put(user.getId(), user);
+        indexUsername(user.getId(), user.getUsername());
+        changeEventBus.publishSave(ChangeEvent.USERS, user.getId(), previous == null, user);
         return user;
     }
     
@@ -26,9 +57,22 @@ public class UserRepository {
     }
     
     public Optional<User> findByUsername(String username) {
-        return users.values().stream()
-                .filter(user -> user.getUsername() != null && user.getUsername().equals(username))
-                .findFirst();
+        if (username == null || !usernameFilter.mightContain(username)) {
+            return Optional.empty();
+        }
+        Long id = idsByUsername.get(username);
+        return id != null ? findById(id) : Optional.empty();
+    }
+
+    public boolean existsByUsername(String username) {
+        return username != null && usernameFilter.mightContain(username) && idsByUsername.containsKey(username);
+    }
+
+    /**
+     * Up to limit usernames starting with the prefix, ignoring case, alphabetically
+     */
+    public List<String> completeUsername(String prefix, int limit) {
+        return usernameTrie.complete(prefix, limit);
     }
     
     public Optional<User> findByEmail(String email) {
@@ -44,18 +88,58 @@ public class UserRepository {
     }
     
     public List<User> findAll() {
-        return new ArrayList<>(users.values());
-    }
-    
-    public List<User> searchBySkill(String skillName) {
-        return users.values().stream()
-                .filter(user -> user.getOfferedSkills().stream()
-                        .anyMatch(skill -> skill.getName().toLowerCase()
-                                .contains(skillName.toLowerCase())))
-                .collect(Collectors.toList());
+        return users.values();
     }
     
     public void deleteById(Long id) {
-        users.remove(id);
+        User removed = users.remove(id);
+        indexUsername(id, null);
+        if (removed != null) {
+            changeEventBus.publishDelete(ChangeEvent.USERS, id, removed);
+        }
+    }
+
+    public long count() {
+        return users.size();
+    }
+
+    /**
+     * Points the exact index and trie at the user's current username. Names are added to the
+     * filter before they become visible in the exact index, so it never answers a false "no".
+     */
+    private void indexUsername(Long id, String username) {
+        synchronized (usernameLock) {
+            String previous = usernamesById.get(id);
+            if (Objects.equals(previous, username)) {
+                return;
+            }
+            if (previous != null) {
+                idsByUsername.remove(previous, id);
+                usernameTrie.remove(previous);
+                usernamesById.remove(id);
+            }
+            if (username == null) {
+                return;
+            }
+            if (++usernameInsertions > usernameFilter.capacity()) {
+                rebuildUsernameFilter();
+            }
+            usernameFilter.add(username);
+            idsByUsername.put(username, id);
+            usernamesById.put(id, username);
+            usernameTrie.put(username, 1);
+        }
+    }
+
+    /**
+     * Replaces the filter with one sized for twice the current usernames, which also sheds
+     * bits left behind by renamed and deleted users
+     */
+    private void rebuildUsernameFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(INITIAL_USERNAME_CAPACITY, idsByUsername.size() * 2L),
+                USERNAME_FALSE_POSITIVE_RATE);
+        idsByUsername.keySet().forEach(rebuilt::add);
+        usernameFilter = rebuilt;
+        usernameInsertions = idsByUsername.size() + 1;
     }
 }
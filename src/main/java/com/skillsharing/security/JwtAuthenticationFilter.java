@@ -1,5 +1,8 @@
 package com.skillsharing.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import javax.annotation.PostConstruct;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -13,12 +16,31 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String MESSAGE_STREAM_PATH = "/api/messages/stream";
     
     @Autowired
     private JwtUtil jwtUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer validTokenTimer;
+    private Timer invalidTokenTimer;
+
+    @PostConstruct
+    public void registerTimers() {
+        validTokenTimer = Timer.builder("security.jwt.validation")
+                .tag("outcome", "valid")
+                .register(meterRegistry);
+        invalidTokenTimer = Timer.builder("security.jwt.validation")
+                .tag("outcome", "invalid")
+                .register(meterRegistry);
+    }
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
@@ -32,10 +54,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             jwt = authorizationHeader.substring(7);
             username = jwtUtil.extractUsername(jwt);
+        } else if (MESSAGE_STREAM_PATH.equals(request.getServletPath()) && request.getParameter("access_token") != null) {
+            // EventSource cannot send an Authorization header
+            jwt = request.getParameter("access_token");
+            username = jwtUtil.extractUsername(jwt);
         }
         
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(jwt, username)) {
+            long start = System.nanoTime();
+            boolean valid = jwtUtil.validateToken(jwt, username);
+            (valid ? validTokenTimer : invalidTokenTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (valid) {
                 UsernamePasswordAuthenticationToken authToken = 
                     new UsernamePasswordAuthenticationToken(username, null, new ArrayList<>());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
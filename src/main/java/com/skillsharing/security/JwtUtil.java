@@ -4,9 +4,12 @@ import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -14,8 +17,19 @@ import java.util.Map;
 @Component
 public class JwtUtil {
     
-    private final SecretKey SECRET_KEY = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    // Shared secret so tokens issued by one instance are accepted by the others; random when unset
+    @Value("${jwt.secret:}")
+    private String secret;
+
+    private SecretKey signingKey;
     private final long EXPIRATION_TIME = 86400000; // 24 hours
+
+    @PostConstruct
+    public void init() {
+        signingKey = secret.isEmpty()
+                ? Keys.secretKeyFor(SignatureAlgorithm.HS256)
+                : Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
     
     public String generateToken(String username, Long userId) {
         Map<String, Object> claims = new HashMap<>();
@@ -29,7 +43,7 @@ public class JwtUtil {
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(SECRET_KEY)
+                .signWith(signingKey)
                 .compact();
     }
     
@@ -43,7 +57,7 @@ public class JwtUtil {
     
     private Claims extractAllClaims(String token) {
         return Jwts.parser()
-                .setSigningKey(SECRET_KEY)
+                .setSigningKey(signingKey)
                 .parseClaimsJws(token)
                 .getBody();
     }
@@ -0,0 +1,12 @@
+package com.skillsharing.service;
+
+/**
+ * Thrown when a booking cannot go ahead because a participant is already booked for an
+ * overlapping slot, or the request it comes from has already been decided
+ */
+public class BookingConflictException extends RuntimeException {
+
+    public BookingConflictException(String message) {
+        super(message);
+    }
+}
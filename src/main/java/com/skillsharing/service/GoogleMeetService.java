@@ -15,6 +15,10 @@ import com.google.api.services.calendar.model.*;
 import com.skillsharing.model.Session;
 import com.skillsharing.model.User;
 import com.skillsharing.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -28,12 +32,11 @@ import java.time.OffsetDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.logging.Logger;
 
 @Service
 public class GoogleMeetService {
 
-    private static final Logger logger = Logger.getLogger(GoogleMeetService.class.getName());
+    private static final Logger logger = LoggerFactory.getLogger(GoogleMeetService.class);
     private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
     private static final List<String> SCOPES = Arrays.asList(
             CalendarScopes.CALENDAR_EVENTS,
@@ -46,57 +49,48 @@ public class GoogleMeetService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private String clientId;
     private String clientSecret;
 
+    // Thread-safe, so one transport serves every call without reloading the trust store
+    private volatile NetHttpTransport httpTransport;
+
     /**
      * Creates Google Calendar events for both teacher and learner with real Google Meet
      */
     public Session createCalendarEventsForBothUsers(Session session, User teacher, User learner) {
-        logger.info("=== STARTING GOOGLE MEET CALENDAR INTEGRATION ===");
-        logger.info("Session ID: " + session.getId());
-        logger.info("Teacher: " + teacher.getEmail() + " (token: " + (teacher.getGoogleAccessToken() != null) + ")");
-        logger.info("Learner: " + learner.getEmail() + " (token: " + (learner.getGoogleAccessToken() != null) + ")");
+        logger.debug("event=google.meet.create.start sessionId={} teacherHasToken={} learnerHasToken={}",
+                session.getId(), teacher.getGoogleAccessToken() != null, learner.getGoogleAccessToken() != null);
 
         try {
             loadClientSecrets();
 
             if (teacher.getGoogleAccessToken() != null && !teacher.getGoogleAccessToken().isEmpty()) {
-                logger.info("Creating calendar event using teacher's credentials...");
-
                 Calendar teacherCalendar = createCalendarServiceForUser(teacher);
                 Event event = createCalendarEvent(session, teacher, learner);
 
-                logger.info("Inserting event into teacher's calendar...");
-                Event createdEvent = teacherCalendar.events()
-                        .insert("primary", event)
-                        .setConferenceDataVersion(1)
-                        .setSendUpdates("all")
-                        .execute();
+                Event createdEvent = insertEvent(teacherCalendar, event);
 
                 extractMeetDetailsFromEvent(session, createdEvent);
 
                 if (session.getMeetingUrl() != null && session.getMeetingUrl().contains("meet.google.com")) {
-                    logger.info("✅ SUCCESS! Real Google Meet URL: " + session.getMeetingUrl());
+                    logger.info("event=google.meet.created owner=teacher meetingId={}", session.getMeetingId());
                     return session;
                 } else {
-                    logger.warning("⚠️ Event created but no Meet URL found");
+                    logger.warn("event=google.meet.missing_url owner=teacher");
                 }
             } else {
-                logger.warning("⚠️ Teacher has no Google OAuth token");
+                logger.debug("event=google.meet.skipped owner=teacher reason=no_oauth_token");
             }
 
             if (learner.getGoogleAccessToken() != null && !learner.getGoogleAccessToken().isEmpty()) {
-                logger.info("Trying with learner's credentials...");
-
                 Calendar learnerCalendar = createCalendarServiceForUser(learner);
                 Event event = createCalendarEvent(session, teacher, learner);
 
-                Event createdEvent = learnerCalendar.events()
-                        .insert("primary", event)
-                        .setConferenceDataVersion(1)
-                        .setSendUpdates("all")
-                        .execute();
+                Event createdEvent = insertEvent(learnerCalendar, event);
 
                 extractMeetDetailsFromEvent(session, createdEvent);
 
@@ -111,13 +105,30 @@ public class GoogleMeetService {
         }
     }
 
+    /**
+     * Inserts the event into the user's primary calendar, recording call latency and outcome
+     */
+    private Event insertEvent(Calendar calendar, Event event) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            Event createdEvent = calendar.events()
+                    .insert("primary", event)
+                    .setConferenceDataVersion(1)
+                    .setSendUpdates("all")
+                    .execute();
+            outcome = "success";
+            return createdEvent;
+        } finally {
+            sample.stop(meterRegistry.timer("google.calendar.calls", "operation", "events.insert", "outcome", outcome));
+        }
+    }
+
     /**
      * FIXED: Creates a Calendar service with proper token refresh capability
      */
     private Calendar createCalendarServiceForUser(User user) throws IOException, GeneralSecurityException {
-        logger.info("Creating calendar service for: " + user.getEmail());
-
-        final NetHttpTransport HTTP_TRANSPORT = GoogleNetHttpTransport.newTrustedTransport();
+        final NetHttpTransport HTTP_TRANSPORT = httpTransport();
 
         // Use calendar-specific tokens if available, otherwise fall back to general tokens
         String accessToken = user.getGoogleCalendarToken();
@@ -127,9 +138,9 @@ public class GoogleMeetService {
         if (accessToken == null || accessToken.isEmpty()) {
             accessToken = user.getGoogleAccessToken();
             tokenExpiry = user.getGoogleTokenExpiry();
-            logger.info("Using general access token (no calendar-specific token available)");
+            logger.debug("event=google.calendar.token source=general userId={}", user.getId());
         } else {
-            logger.info("Using calendar-specific access token");
+            logger.debug("event=google.calendar.token source=calendar userId={}", user.getId());
         }
 
         // Check if token is expired
@@ -138,15 +149,11 @@ public class GoogleMeetService {
             long expiryTime = tokenExpiry;
             long currentTime = System.currentTimeMillis();
             isExpired = currentTime >= expiryTime;
-
-            logger.info("Token expiry: " + new java.util.Date(expiryTime));
-            logger.info("Current time: " + new java.util.Date(currentTime));
-            logger.info("Token expired: " + isExpired);
         }
 
         // If token is expired and we have a refresh token, refresh it
         if (isExpired && refreshToken != null && !refreshToken.isEmpty()) {
-            logger.info("Token expired, attempting refresh...");
+            logger.debug("event=google.token.expired userId={} expiry={}", user.getId(), tokenExpiry);
             refreshAccessToken(user);
             // After refresh, use the updated tokens
             accessToken = user.getGoogleCalendarToken() != null ? user.getGoogleCalendarToken() : user.getGoogleAccessToken();
@@ -171,18 +178,29 @@ public class GoogleMeetService {
                 .setApplicationName(applicationName)
                 .build();
 
-        logger.info("✅ Calendar service created successfully");
         return calendar;
     }
 
+    private NetHttpTransport httpTransport() throws IOException, GeneralSecurityException {
+        NetHttpTransport transport = httpTransport;
+        if (transport == null) {
+            synchronized (this) {
+                transport = httpTransport;
+                if (transport == null) {
+                    transport = GoogleNetHttpTransport.newTrustedTransport();
+                    httpTransport = transport;
+                }
+            }
+        }
+        return transport;
+    }
+
     /**
      * Refreshes the user's access token using their refresh token
      */
     private void refreshAccessToken(User user) throws IOException {
-        logger.info("Refreshing access token for user: " + user.getEmail());
-
         try {
-            final NetHttpTransport HTTP_TRANSPORT = GoogleNetHttpTransport.newTrustedTransport();
+            final NetHttpTransport HTTP_TRANSPORT = httpTransport();
 
             GoogleCredential credential = new GoogleCredential.Builder()
                     .setTransport(HTTP_TRANSPORT)
@@ -201,11 +219,10 @@ public class GoogleMeetService {
             // Save to database
             userRepository.save(user);
 
-            logger.info("✅ Token refreshed successfully");
-            logger.info("New expiry: " + new java.util.Date(credential.getExpirationTimeMilliseconds()));
+            logger.info("event=google.token.refreshed userId={} expiry={}", user.getId(), credential.getExpirationTimeMilliseconds());
 
         } catch (Exception e) {
-            logger.severe("❌ Failed to refresh token: " + e.getMessage());
+            logger.warn("event=google.token.refresh_failed userId={} error=\"{}\"", user.getId(), e.getMessage());
             throw new IOException("Failed to refresh access token", e);
         }
     }
@@ -229,15 +246,13 @@ public class GoogleMeetService {
         clientId = clientSecrets.getDetails().getClientId();
         clientSecret = clientSecrets.getDetails().getClientSecret();
 
-        logger.info("✅ Client secrets loaded");
+        logger.info("event=google.client_secrets.loaded");
     }
 
     /**
      * Creates a Google Calendar event with Google Meet conference
      */
     private Event createCalendarEvent(Session session, User teacher, User learner) {
-        logger.info("Creating calendar event object...");
-
         Event event = new Event()
                 .setSummary("Skill Sharing: " + (session.getSkillId() != null ? session.getSkillId() : "Session"))
                 .setDescription(String.format(
@@ -280,7 +295,6 @@ public class GoogleMeetService {
 
         event.setConferenceData(conferenceData);
 
-        logger.info("✅ Calendar event object created");
         return event;
     }
 
@@ -288,24 +302,14 @@ public class GoogleMeetService {
      * Extracts Google Meet details from the created calendar event
      */
     private void extractMeetDetailsFromEvent(Session session, Event event) {
-        logger.info("Extracting Meet details from event...");
-
         session.setSessionType("virtual");
 
         // Extract Google Meet URL from conference data
         if (event.getConferenceData() != null) {
             ConferenceData confData = event.getConferenceData();
 
-            logger.info("Conference data found");
-            logger.info("Conference ID: " + confData.getConferenceId());
-
             if (confData.getEntryPoints() != null) {
-                logger.info("Entry points: " + confData.getEntryPoints().size());
-
                 for (EntryPoint entryPoint : confData.getEntryPoints()) {
-                    logger.info("Entry point type: " + entryPoint.getEntryPointType());
-                    logger.info("Entry point URI: " + entryPoint.getUri());
-
                     if ("video".equals(entryPoint.getEntryPointType())) {
                         String meetUrl = entryPoint.getUri();
                         session.setMeetingUrl(meetUrl);
@@ -314,13 +318,12 @@ public class GoogleMeetService {
                         if (meetUrl != null && meetUrl.contains("meet.google.com/")) {
                             String meetingCode = meetUrl.substring(meetUrl.lastIndexOf("/") + 1);
                             session.setMeetingId(meetingCode);
-                            logger.info("✅ Extracted meeting code: " + meetingCode);
                         }
                         break;
                     }
                 }
             } else {
-                logger.warning("⚠️ No entry points found in conference data");
+                logger.warn("event=google.meet.no_entry_points conferenceId={}", confData.getConferenceId());
             }
 
             // Set conference ID as additional reference
@@ -328,11 +331,10 @@ public class GoogleMeetService {
                 session.setMeetingPassword(confData.getConferenceId());
             }
         } else {
-            logger.warning("⚠️ No conference data in event");
+            logger.warn("event=google.meet.no_conference_data eventId={}", event.getId());
         }
 
-        logger.info("Final meeting URL: " + session.getMeetingUrl());
-        logger.info("Final meeting ID: " + session.getMeetingId());
+        logger.debug("event=google.meet.extracted meetingId={} conferenceId={}", session.getMeetingId(), session.getMeetingPassword());
     }
 
     /**
@@ -340,10 +342,8 @@ public class GoogleMeetService {
      */
     public boolean testUserCalendarAccess(User user) {
         try {
-            logger.info("Testing calendar access for: " + user.getEmail());
-
             if (user.getGoogleAccessToken() == null || user.getGoogleAccessToken().isEmpty()) {
-                logger.warning("User has no access token");
+                logger.debug("event=google.calendar_access_test.skipped reason=no_access_token userId={}", user.getId());
                 return false;
             }
 
@@ -355,13 +355,19 @@ public class GoogleMeetService {
                             .setMaxResults(1)
                             .setTimeMin(new DateTime(System.currentTimeMillis()));
 
-            request.execute();
-            logger.info("✅ Calendar access test successful");
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "failure";
+            try {
+                request.execute();
+                outcome = "success";
+            } finally {
+                sample.stop(meterRegistry.timer("google.calendar.calls", "operation", "events.list", "outcome", outcome));
+            }
+            logger.info("event=google.calendar_access_test.succeeded userId={}", user.getId());
             return true;
 
         } catch (Exception e) {
-            logger.severe("❌ Calendar access test failed: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("event=google.calendar_access_test.failed userId={}", user.getId(), e);
             return false;
         }
     }
@@ -378,7 +384,7 @@ public class GoogleMeetService {
         session.setMeetingId(meetingId);
         session.setSessionType("virtual");
 
-        logger.info("Created basic Google Meet URL: " + meetingUrl);
+        logger.debug("event=google.meet.basic_url meetingId={}", meetingId);
         return session;
     }
 
@@ -388,14 +394,11 @@ public class GoogleMeetService {
      */
     public boolean testCredentialsLoading() {
         try {
-            logger.info("Testing credentials loading...");
-
             // For testing, load from file system since it's excluded from Maven resources
             java.io.File credentialsFile = new java.io.File("src/main/resources/credentials.json");
-            logger.info("Loading Google API credentials from: " + credentialsFile.getAbsolutePath());
 
             if (!credentialsFile.exists()) {
-                logger.severe("Credentials file not found: " + credentialsFile.getAbsolutePath());
+                logger.error("event=google.credentials_test.failed reason=file_not_found path={}", credentialsFile.getAbsolutePath());
                 return false;
             }
 
@@ -403,12 +406,11 @@ public class GoogleMeetService {
             InputStream in = new java.io.FileInputStream(credentialsFile);
             GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(JSON_FACTORY, new InputStreamReader(in));
 
-            logger.info("Successfully loaded credentials");
-            logger.info("Client ID: " + clientSecrets.getDetails().getClientId());
+            logger.info("event=google.credentials_test.succeeded clientId={}", clientSecrets.getDetails().getClientId());
             return true;
 
         } catch (Exception e) {
-            logger.severe("Credentials loading test failed: " + e.getMessage());
+            logger.error("event=google.credentials_test.failed error=\"{}\"", e.getMessage());
             return false;
         }
     }
@@ -419,27 +421,22 @@ public class GoogleMeetService {
      */
     public boolean testGoogleApiConnection() {
         try {
-            logger.info("Testing Google API setup...");
-
             // Test 1: Can we load credentials?
             if (!testCredentialsLoading()) {
-                logger.severe("Cannot load Google API credentials");
                 return false;
             }
 
             // Test 2: Can we create HTTP transport?
-            GoogleNetHttpTransport.newTrustedTransport();
-            logger.info("HTTP transport creation successful");
+            httpTransport();
 
             // Test 3: Can we create JSON factory?
             GsonFactory.getDefaultInstance();
-            logger.info("JSON factory creation successful");
 
-            logger.info("Google API setup test successful - credentials and dependencies are working");
+            logger.info("event=google.api_test.succeeded");
             return true;
 
         } catch (Exception e) {
-            logger.severe("Google API setup test failed: " + e.getMessage());
+            logger.error("event=google.api_test.failed error=\"{}\"", e.getMessage());
             return false;
         }
     }
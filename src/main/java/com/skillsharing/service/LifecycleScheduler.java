@@ -0,0 +1,83 @@
+package com.skillsharing.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deadline timers for session and session request lifecycle transitions, grouped by owner
+ * (e.g. "session:42") so an owner's timers can be replaced when its time or status changes.
+ * Backed by a {@link TimingWheel} advanced by a single ticker thread.
+ */
+@Component
+public class LifecycleScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(LifecycleScheduler.class);
+
+    @Value("${lifecycle.tick-ms:1000}")
+    private long tickMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, List<TimingWheel.Timeout>> timeoutsByOwner = new ConcurrentHashMap<>();
+    private TimingWheel wheel;
+    private ScheduledExecutorService ticker;
+
+    @PostConstruct
+    public void init() {
+        wheel = new TimingWheel(tickMs, System.currentTimeMillis());
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lifecycle-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(() -> wheel.advanceTo(System.currentTimeMillis()), tickMs, tickMs, TimeUnit.MILLISECONDS);
+        Gauge.builder("lifecycle.timers.owners", timeoutsByOwner, Map::size)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Adds a timer for the owner that runs the action at deadlineMs, or on the next tick if already past
+     */
+    public void schedule(String owner, long deadlineMs, Runnable action) {
+        TimingWheel.Timeout timeout = wheel.schedule(deadlineMs, () -> {
+            logger.debug("event=lifecycle.timer_fired owner={}", owner);
+            action.run();
+        });
+        timeoutsByOwner.compute(owner, (key, timeouts) -> {
+            List<TimingWheel.Timeout> ownerTimeouts = timeouts != null ? timeouts : new ArrayList<>();
+            ownerTimeouts.add(timeout);
+            return ownerTimeouts;
+        });
+    }
+
+    /**
+     * Cancels every pending timer of the owner
+     */
+    public void cancel(String owner) {
+        List<TimingWheel.Timeout> timeouts = timeoutsByOwner.remove(owner);
+        if (timeouts != null) {
+            timeouts.forEach(TimingWheel.Timeout::cancel);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.skillsharing.service;
+
+import com.skillsharing.model.Message;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pushes new messages, and other per-user events such as reminders, to the user's open SSE connections.
+ * Each connection has a bounded send buffer drained by a shared worker pool; a client that
+ * falls behind by more than the buffer size is disconnected and expected to reconnect and
+ * re-fetch, so one slow reader can never hold up the sender or other subscribers.
+ */
+@Service
+public class MessagePushService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessagePushService.class);
+
+    @Value("${messaging.push.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${messaging.push.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${messaging.push.workers:4}")
+    private int workers;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private ExecutorService senders;
+    private Counter droppedConnections;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "message-push-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("messaging.push.connections", connectionCount, AtomicInteger::get)
+                .register(meterRegistry);
+        droppedConnections = Counter.builder("messaging.push.dropped")
+                .description("Connections closed because their send buffer overflowed")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    /**
+     * Opens a push channel for the user
+     */
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscription subscription = new Subscription(userId, emitter, new ArrayBlockingQueue<>(bufferSize));
+
+        subscriptions.compute(userId, (id, set) -> {
+            Set<Subscription> userSubscriptions = set != null ? set : ConcurrentHashMap.<Subscription>newKeySet();
+            userSubscriptions.add(subscription);
+            return userSubscriptions;
+        });
+        connectionCount.incrementAndGet();
+
+        emitter.onCompletion(() -> unsubscribe(subscription));
+        emitter.onTimeout(() -> unsubscribe(subscription));
+        emitter.onError(error -> unsubscribe(subscription));
+
+        try {
+            emitter.send(SseEmitter.event().name("ready").data(userId));
+        } catch (IOException e) {
+            unsubscribe(subscription);
+        }
+        logger.debug("event=message_push.subscribed userId={}", userId);
+        return emitter;
+    }
+
+    /**
+     * Fans a stored message out to every open connection of its receiver without blocking the caller
+     */
+    public void publish(Message message) {
+        push(message.getReceiverId(), () -> SseEmitter.event()
+                .name("message")
+                .id(String.valueOf(message.getId()))
+                .data(message));
+    }
+
+    /**
+     * Pushes a named event to every open connection of the user, e.g. a session reminder
+     */
+    public void pushEvent(Long userId, String name, Object data) {
+        push(userId, () -> SseEmitter.event().name(name).data(data));
+    }
+
+    // A builder is consumed by the send that builds it, so every connection gets its own
+    private void push(Long userId, Supplier<SseEmitter.SseEventBuilder> event) {
+        Set<Subscription> userSubscriptions = subscriptions.get(userId);
+        if (userSubscriptions == null) {
+            return;
+        }
+        for (Subscription subscription : userSubscriptions) {
+            if (subscription.buffer.offer(event)) {
+                scheduleDrain(subscription);
+            } else {
+                droppedConnections.increment();
+                logger.warn("event=message_push.overflow userId={} bufferSize={}", subscription.userId, bufferSize);
+                unsubscribe(subscription);
+                subscription.emitter.complete();
+            }
+        }
+    }
+
+    private void scheduleDrain(Subscription subscription) {
+        if (subscription.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscription));
+            } catch (RejectedExecutionException e) {
+                subscription.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        do {
+            Supplier<SseEmitter.SseEventBuilder> event;
+            while ((event = subscription.buffer.poll()) != null) {
+                try {
+                    subscription.emitter.send(event.get());
+                } catch (IOException | IllegalStateException e) {
+                    unsubscribe(subscription);
+                    subscription.draining.set(false);
+                    return;
+                }
+            }
+            subscription.draining.set(false);
+            // A publisher may have enqueued after the last poll but before the flag was cleared
+        } while (!subscription.buffer.isEmpty() && subscription.draining.compareAndSet(false, true));
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.userId, (id, set) -> {
+            if (set.remove(subscription)) {
+                connectionCount.decrementAndGet();
+            }
+            return set.isEmpty() ? null : set;
+        });
+        subscription.buffer.clear();
+    }
+
+    private static final class Subscription {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Supplier<SseEmitter.SseEventBuilder>> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscription(Long userId, SseEmitter emitter, BlockingQueue<Supplier<SseEmitter.SseEventBuilder>> buffer) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -1,39 +1,113 @@
 package com.skillsharing.service;
 
+import com.skillsharing.dto.ConversationSummary;
+import com.skillsharing.dto.MessageSearchPage;
+import com.skillsharing.dto.UnreadCountsResponse;
+import com.skillsharing.events.ChangeEvent;
+import com.skillsharing.events.ChangeEventBus;
+import com.skillsharing.index.MessageIndex;
 import com.skillsharing.model.Message;
 import com.skillsharing.repository.MessageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class MessageService {
+
+    private static final int PREVIEW_LENGTH = 100;
     
     @Autowired
     private MessageRepository messageRepository;
+
+    @Autowired
+    private MessagePushService messagePushService;
+
+    @Autowired
+    private MessageIndex messageIndex;
+
+    @Autowired
+    private ChangeEventBus changeEventBus;
+
+    @PostConstruct
+    public void subscribeToChanges() {
+        changeEventBus.subscribe("message-index", event -> {
+            if (event.isFor(ChangeEvent.MESSAGES) && event.isCreate()) {
+                messageIndex.index((Message) event.getEntity());
+            }
+        });
+    }
     
     public Message sendMessage(Message message) {
         message.setTimestamp(LocalDateTime.now());
         message.setIsRead(false);
-        return messageRepository.save(message);
+        Message savedMessage = messageRepository.save(message);
+        messagePushService.publish(savedMessage);
+        return savedMessage;
     }
     
     public List<Message> getConversation(Long user1Id, Long user2Id) {
         return messageRepository.findConversation(user1Id, user2Id);
     }
     
+    /**
+     * The user's messages containing every term of the query, newest first
+     */
+    public MessageSearchPage searchMessages(Long userId, String query, Long counterpartId, Long cursor, int size) {
+        // Fetch one extra hit to learn whether another page follows
+        List<Long> ids = messageIndex.search(userId, query, counterpartId, cursor, size + 1);
+        Long nextCursor = null;
+        if (ids.size() > size) {
+            ids = ids.subList(0, size);
+            nextCursor = ids.get(size - 1);
+        }
+        List<Message> messages = ids.stream()
+                .map(messageRepository::findById)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(Collectors.toList());
+        return new MessageSearchPage(userId, messages, nextCursor);
+    }
+
     public List<Message> getReceivedMessages(Long userId) {
         return messageRepository.findByReceiverId(userId);
     }
+
+    /**
+     * One entry per conversation, most recent first
+     */
+    public List<ConversationSummary> getInbox(Long userId, int page, int size) {
+        return messageRepository.findLatestPerConversation(userId, page * size, size).stream()
+                .map(message -> {
+                    Long counterpartId = userId.equals(message.getSenderId())
+                            ? message.getReceiverId()
+                            : message.getSenderId();
+                    String content = message.getContent();
+                    String preview = content != null && content.length() > PREVIEW_LENGTH
+                            ? content.substring(0, PREVIEW_LENGTH)
+                            : content;
+                    return new ConversationSummary(counterpartId, message.getId(), message.getSenderId(),
+                            preview, message.getTimestamp(), messageRepository.countUnread(userId, counterpartId));
+                })
+                .collect(Collectors.toList());
+    }
     
     public Message markAsRead(Long messageId) {
-        Message message = messageRepository.findById(messageId).orElse(null);
-        if (message != null) {
-            message.setIsRead(true);
-            return messageRepository.save(message);
-        }
-        return null;
+        return messageRepository.markAsRead(messageId).orElse(null);
+    }
+
+    public int markConversationAsRead(Long receiverId, Long senderId, Long upToMessageId) {
+        return messageRepository.markConversationAsRead(receiverId, senderId, upToMessageId);
+    }
+
+    public UnreadCountsResponse getUnreadCounts(Long userId) {
+        return new UnreadCountsResponse(userId,
+                messageRepository.countUnread(userId),
+                messageRepository.countUnreadByConversation(userId));
     }
 }
@@ -0,0 +1,106 @@
+package com.skillsharing.service;
+
+import com.skillsharing.model.RatingStats;
+import com.skillsharing.model.Review;
+import com.skillsharing.model.User;
+import com.skillsharing.repository.ReviewRepository;
+import com.skillsharing.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Periodically recomputes every user's rating aggregates exactly from the stored reviews and
+ * reports drift. A drift is only corrected when the same delta shows up on two consecutive runs,
+ * so reviews saved but not yet aggregated while the job runs are never mistaken for drift.
+ * Not created on replicas: they take corrections from the primary's change log instead.
+ */
+@Component
+@ConditionalOnExpression("'${replication.role:standalone}' != 'replica'")
+public class RatingReconciliationJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingReconciliationJob.class);
+
+    // Slot layout of an aggregate vector: [sum, count, 1-star, ..., 5-star]
+    private static final int SUM = 0;
+    private static final int COUNT = 1;
+    private static final int HISTOGRAM = 2;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Only touched by the scheduler thread
+    private final Map<Long, long[]> pendingDrift = new HashMap<>();
+
+    @Scheduled(fixedDelayString = "${ratings.reconcile.interval-ms:600000}",
+            initialDelayString = "${ratings.reconcile.interval-ms:600000}")
+    public void reconcile() {
+        Map<Long, long[]> exact = new HashMap<>();
+        for (Review review : reviewRepository.findAll()) {
+            if (review.getReviewedUserId() == null || review.getRating() == null) {
+                continue;
+            }
+            long[] aggregate = exact.computeIfAbsent(review.getReviewedUserId(), id -> new long[HISTOGRAM + RatingStats.MAX_STARS]);
+            int stars = RatingStats.clamp(review.getRating());
+            aggregate[SUM] += stars;
+            aggregate[COUNT]++;
+            aggregate[HISTOGRAM + stars - 1]++;
+        }
+
+        int drifted = 0;
+        for (User user : userRepository.findAll()) {
+            long[] delta = delta(exact.get(user.getId()), user.getRatingStats());
+            if (delta == null) {
+                pendingDrift.remove(user.getId());
+                continue;
+            }
+            drifted++;
+            long[] previous = pendingDrift.get(user.getId());
+            if (previous != null && Arrays.equals(previous, delta)) {
+                user.getRatingStats().adjust(delta[SUM], delta[COUNT],
+                        Arrays.copyOfRange(delta, HISTOGRAM, delta.length));
+                userRepository.save(user);
+                pendingDrift.remove(user.getId());
+                meterRegistry.counter("ratings.reconcile.drift", "outcome", "corrected").increment();
+                logger.warn("event=rating.drift_corrected userId={} sumDelta={} countDelta={}",
+                        user.getId(), delta[SUM], delta[COUNT]);
+            } else {
+                pendingDrift.put(user.getId(), delta);
+                meterRegistry.counter("ratings.reconcile.drift", "outcome", "detected").increment();
+                logger.info("event=rating.drift_detected userId={} sumDelta={} countDelta={}",
+                        user.getId(), delta[SUM], delta[COUNT]);
+            }
+        }
+        logger.debug("event=rating.reconciled reviewedUsers={} drifted={}", exact.size(), drifted);
+    }
+
+    /**
+     * Exact minus observed, or null when they agree
+     */
+    private long[] delta(long[] exact, RatingStats observed) {
+        long[] histogram = observed.histogram();
+        long[] delta = new long[HISTOGRAM + histogram.length];
+        delta[SUM] = (exact != null ? exact[SUM] : 0) - observed.sum();
+        delta[COUNT] = (exact != null ? exact[COUNT] : 0) - observed.count();
+        boolean drifted = delta[SUM] != 0 || delta[COUNT] != 0;
+        for (int i = 0; i < histogram.length; i++) {
+            delta[HISTOGRAM + i] = (exact != null ? exact[HISTOGRAM + i] : 0) - histogram[i];
+            drifted |= delta[HISTOGRAM + i] != 0;
+        }
+        return drifted ? delta : null;
+    }
+}
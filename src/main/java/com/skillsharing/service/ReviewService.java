@@ -1,12 +1,18 @@
 package com.skillsharing.service;
 
+import com.skillsharing.dto.ReviewPage;
+import com.skillsharing.model.RatingStats;
 import com.skillsharing.model.Review;
+import com.skillsharing.model.User;
 import com.skillsharing.repository.ReviewRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class ReviewService {
@@ -31,6 +37,43 @@ public class ReviewService {
         return reviewRepository.findByReviewedUserId(userId);
     }
     
+    /**
+     * A cursor is valid when absent or the ID of one of the user's received reviews
+     */
+    public boolean isValidCursor(Long userId, Long cursor) {
+        return cursor == null || reviewRepository.findById(cursor)
+                .map(review -> userId.equals(review.getReviewedUserId()))
+                .orElse(false);
+    }
+    
+    /**
+     * One page of the user's reviews, newest first, with the precomputed rating summary;
+     * empty when the user does not exist
+     */
+    public Optional<ReviewPage> getReviewPage(Long userId, Long cursor, int size) {
+        Optional<User> found = userService.findById(userId);
+        if (!found.isPresent()) {
+            return Optional.empty();
+        }
+        User user = found.get();
+        // Fetch one extra review to learn whether another page follows
+        List<Review> reviews = reviewRepository.findByReviewedUserId(userId, cursor, size + 1);
+        Long nextCursor = null;
+        if (reviews.size() > size) {
+            reviews = reviews.subList(0, size);
+            nextCursor = reviews.get(size - 1).getId();
+        }
+        
+        RatingStats stats = user.getRatingStats();
+        long[] counts = stats.histogram();
+        Map<Integer, Long> histogram = new LinkedHashMap<>();
+        for (int stars = RatingStats.MIN_STARS; stars <= RatingStats.MAX_STARS; stars++) {
+            histogram.put(stars, counts[stars - 1]);
+        }
+        return Optional.of(new ReviewPage(userId, reviews, nextCursor, stats.average(), stats.count(), histogram,
+                reviewRepository.recentAverage(userId), reviewRepository.recentCount(userId)));
+    }
+    
     public List<Review> getAllReviews() {
         return reviewRepository.findAll();
     }
@@ -0,0 +1,12 @@
+package com.skillsharing.service;
+
+import com.skillsharing.model.Session;
+
+/**
+ * Called shortly before a booked session starts. Implementations run on the lifecycle ticker
+ * thread and should hand off anything slow.
+ */
+public interface SessionReminderHook {
+
+    void remind(Session session);
+}
@@ -0,0 +1,21 @@
+package com.skillsharing.service;
+
+import com.skillsharing.model.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends a "session-reminder" event to both participants' open push connections
+ */
+@Component
+public class SessionReminderPushHook implements SessionReminderHook {
+
+    @Autowired
+    private MessagePushService messagePushService;
+
+    @Override
+    public void remind(Session session) {
+        messagePushService.pushEvent(session.getTeacherId(), "session-reminder", session);
+        messagePushService.pushEvent(session.getLearnerId(), "session-reminder", session);
+    }
+}
@@ -3,6 +3,8 @@ package com.skillsharing.service;
 import com.skillsharing.model.Session;
 import com.skillsharing.model.SessionRequest;
 import com.skillsharing.repository.SessionRequestRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -12,15 +14,30 @@ import java.util.Optional;
 @Service
 public class SessionRequestService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SessionRequestService.class);
+
     @Autowired
     private SessionRequestRepository sessionRequestRepository;
 
     @Autowired
     private SessionService sessionService;
 
+    @Autowired
+    private LifecycleScheduler lifecycleScheduler;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * Validates and stores a new pending request. Throws IllegalArgumentException for a missing
+     * time, a non-positive duration or an unknown participant, and BookingConflictException when
+     * either participant is already booked at that time.
+     */
     public SessionRequest createSessionRequest(SessionRequest sessionRequest) {
+        validate(sessionRequest);
+        sessionService.checkConflicts(toSession(sessionRequest), null);
         sessionRequest.setStatus("pending");
-        return sessionRequestRepository.save(sessionRequest);
+        return saveRequest(sessionRequest);
     }
 
     public Optional<SessionRequest> findById(Long id) {
@@ -47,49 +64,83 @@ public class SessionRequestService {
         return sessionRequestRepository.findByLearnerIdAndStatus(learnerId, "approved");
     }
 
+    /**
+     * Approves a pending request and books its session. The status check, the conflict check and
+     * the session insert run under the teacher's and learner's booking locks, so concurrent
+     * approvals can neither approve the same request twice nor double-book either participant.
+     */
     public SessionRequest approveSessionRequest(Long requestId, String responseMessage) {
-        System.out.println("Approving session request: " + requestId);
-
         Optional<SessionRequest> requestOpt = sessionRequestRepository.findById(requestId);
         if (requestOpt.isPresent()) {
             SessionRequest request = requestOpt.get();
-            System.out.println("Found request: " + request.getId() + ", type: " + request.getSessionType());
-
-            request.setStatus("approved");
-            request.setResponseMessage(responseMessage);
-
-            // Create actual session
-            Session session = new Session();
-            session.setTeacherId(request.getTeacherId());
-            session.setLearnerId(request.getLearnerId());
-            session.setSkillId(request.getSkillId());
-            session.setScheduledTime(request.getRequestedTime());
-            session.setDuration(request.getDuration());
-            session.setSessionType(request.getSessionType());
-            session.setLocation(request.getLocation());
-            session.setNotes(request.getNotes());
-            session.setStatus("scheduled");
-
-            System.out.println("Created session object, calling sessionService.createSession");
-            // Save the session (this will generate Google Meet URL if virtual)
-            Session createdSession = sessionService.createSession(session);
-            System.out.println("Session created with ID: " + createdSession.getId());
-
-            SessionRequest savedRequest = sessionRequestRepository.save(request);
-            System.out.println("Request approved and saved");
-            return savedRequest;
+
+            Session reservedSession = sessionService.withBookingLocks(request.getTeacherId(), request.getLearnerId(), () -> {
+                if (!"pending".equalsIgnoreCase(request.getStatus())) {
+                    logger.info("event=session_request.approve.rejected reason=not_pending requestId={} status={}",
+                            requestId, request.getStatus());
+                    throw new BookingConflictException("Session request " + requestId + " is already " + request.getStatus());
+                }
+                // Fails without touching the request if either side is booked
+                Session session = sessionService.reserveSession(toSession(request));
+                request.setStatus("approved");
+                request.setResponseMessage(responseMessage);
+                saveRequest(request);
+                return session;
+            });
+
+            // Generate the Google Meet URL if virtual, outside the locks
+            Session createdSession = sessionService.attachMeeting(reservedSession);
+            logger.info("event=session_request.approved requestId={} sessionId={} type={}",
+                    requestId, createdSession.getId(), request.getSessionType());
+            return request;
         }
-        System.out.println("Request not found: " + requestId);
+        logger.warn("event=session_request.approve.failed reason=not_found requestId={}", requestId);
         return null;
     }
 
+    private void validate(SessionRequest request) {
+        if (request.getRequestedTime() == null) {
+            throw new IllegalArgumentException("requestedTime is required");
+        }
+        if (request.getDuration() == null || request.getDuration() <= 0) {
+            throw new IllegalArgumentException("duration must be a positive number of minutes");
+        }
+        if (request.getTeacherId() == null || !userService.findById(request.getTeacherId()).isPresent()) {
+            throw new IllegalArgumentException("Teacher not found with ID: " + request.getTeacherId());
+        }
+        if (request.getLearnerId() == null || !userService.findById(request.getLearnerId()).isPresent()) {
+            throw new IllegalArgumentException("Learner not found with ID: " + request.getLearnerId());
+        }
+        if (request.getTeacherId().equals(request.getLearnerId())) {
+            throw new IllegalArgumentException("Teacher and learner must be different users");
+        }
+    }
+
+    private Session toSession(SessionRequest request) {
+        Session session = new Session();
+        session.setTeacherId(request.getTeacherId());
+        session.setLearnerId(request.getLearnerId());
+        session.setSkillId(request.getSkillId());
+        session.setScheduledTime(request.getRequestedTime());
+        session.setDuration(request.getDuration());
+        session.setSessionType(request.getSessionType());
+        session.setLocation(request.getLocation());
+        session.setNotes(request.getNotes());
+        return session;
+    }
+
     public SessionRequest rejectSessionRequest(Long requestId, String responseMessage) {
         Optional<SessionRequest> requestOpt = sessionRequestRepository.findById(requestId);
         if (requestOpt.isPresent()) {
             SessionRequest request = requestOpt.get();
-            request.setStatus("rejected");
-            request.setResponseMessage(responseMessage);
-            return sessionRequestRepository.save(request);
+            return sessionService.withBookingLocks(request.getTeacherId(), request.getLearnerId(), () -> {
+                if (!"pending".equalsIgnoreCase(request.getStatus())) {
+                    return null;
+                }
+                request.setStatus("rejected");
+                request.setResponseMessage(responseMessage);
+                return saveRequest(request);
+            });
         }
         return null;
     }
@@ -98,11 +149,13 @@ public class SessionRequestService {
         Optional<SessionRequest> requestOpt = sessionRequestRepository.findById(requestId);
         if (requestOpt.isPresent()) {
             SessionRequest request = requestOpt.get();
-            if (!"pending".equalsIgnoreCase(request.getStatus())) {
-                return null;
-            }
-            request.setStatus("cancelled");
-            return sessionRequestRepository.save(request);
+            return sessionService.withBookingLocks(request.getTeacherId(), request.getLearnerId(), () -> {
+                if (!"pending".equalsIgnoreCase(request.getStatus())) {
+                    return null;
+                }
+                request.setStatus("cancelled");
+                return saveRequest(request);
+            });
         }
         return null;
     }
@@ -111,9 +164,44 @@ public class SessionRequestService {
         Optional<SessionRequest> requestOpt = sessionRequestRepository.findById(requestId);
         if (requestOpt.isPresent()) {
             SessionRequest request = requestOpt.get();
-            request.setStatus(status);
-            return sessionRequestRepository.save(request);
+            return sessionService.withBookingLocks(request.getTeacherId(), request.getLearnerId(), () -> {
+                request.setStatus(status);
+                return saveRequest(request);
+            });
         }
         return null;
     }
+
+    private SessionRequest saveRequest(SessionRequest request) {
+        SessionRequest savedRequest = sessionRequestRepository.save(request);
+        scheduleExpiry(savedRequest);
+        return savedRequest;
+    }
+
+    /**
+     * A request still pending when its requested time arrives can no longer be honoured, so it
+     * expires then. Any other status just cancels the timer.
+     */
+    private void scheduleExpiry(SessionRequest request) {
+        String owner = "request:" + request.getId();
+        lifecycleScheduler.cancel(owner);
+        if (!"pending".equalsIgnoreCase(request.getStatus()) || request.getRequestedTime() == null) {
+            return;
+        }
+        Long id = request.getId();
+        lifecycleScheduler.schedule(owner, request.getRequestedTime().toInstant().toEpochMilli(), () -> expire(id));
+    }
+
+    private void expire(Long requestId) {
+        sessionRequestRepository.findById(requestId).ifPresent(request ->
+                sessionService.withBookingLocks(request.getTeacherId(), request.getLearnerId(), () -> {
+                    if (!"pending".equalsIgnoreCase(request.getStatus())) {
+                        return null;
+                    }
+                    request.setStatus("expired");
+                    logger.info("event=session_request.expired requestId={} requestedTime={}",
+                            requestId, request.getRequestedTime());
+                    return saveRequest(request);
+                }));
+    }
 }
@@ -1,20 +1,31 @@
 package com.skillsharing.service;
 
+import com.skillsharing.events.ChangeEvent;
+import com.skillsharing.events.ChangeEventBus;
+import com.skillsharing.index.ScheduleIndex;
+import com.skillsharing.index.StripedLocks;
 import com.skillsharing.model.Session;
 import com.skillsharing.model.User;
 import com.skillsharing.repository.SessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
-import java.util.logging.Logger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 public class SessionService {
 
-    private static final Logger logger = Logger.getLogger(SessionService.class.getName());
+    private static final Logger logger = LoggerFactory.getLogger(SessionService.class);
 
     @Autowired
     private SessionRepository sessionRepository;
@@ -25,80 +36,153 @@ public class SessionService {
     @Autowired
     private GoogleMeetService googleMeetService;
 
+    @Autowired
+    private ScheduleIndex scheduleIndex;
+
+    @Autowired
+    private LifecycleScheduler lifecycleScheduler;
+
+    @Autowired
+    private ChangeEventBus changeEventBus;
+
+    @Autowired(required = false)
+    private List<SessionReminderHook> reminderHooks = new ArrayList<>();
+
+    @Value("${sessions.reminder.lead-minutes:15}")
+    private long reminderLeadMinutes;
+
+    private final StripedLocks bookingLocks = new StripedLocks(64);
+
+    // Runs between the conflict check and the save it guards; tests use it to force overlapping bookings to interleave
+    private volatile Runnable afterConflictCheck = () -> { };
+
+    // Statuses that hold the participants' time
+    private static final List<String> BOOKED_STATUSES = Arrays.asList("scheduled", "confirmed", "in_progress");
+
+    /**
+     * Keeps bookings in line with the session store, including sessions saved by replication.
+     * Lifecycle timers are only registered by the writes on this node: stores start empty, and a
+     * read-only replica must not change sessions when they fire.
+     */
+    @PostConstruct
+    public void init() {
+        changeEventBus.subscribe("session-bookings", event -> {
+            if (!event.isFor(ChangeEvent.SESSIONS)) {
+                return;
+            }
+            if (event.isDelete()) {
+                Session removed = (Session) event.getEntity();
+                scheduleIndex.release(removed.getTeacherId(), removed.getId());
+                scheduleIndex.release(removed.getLearnerId(), removed.getId());
+            } else {
+                bookParticipants((Session) event.getEntity());
+            }
+        });
+    }
+
     public Session createSession(Session session) {
-        logger.info("=== CREATING NEW SESSION ===");
-        logger.info("Session type: " + session.getSessionType());
-        logger.info("Teacher ID: " + session.getTeacherId());
-        logger.info("Learner ID: " + session.getLearnerId());
-        logger.info("Scheduled time: " + session.getScheduledTime());
-        logger.info("Duration: " + session.getDuration() + " minutes");
+        Session reserved = withBookingLocks(session.getTeacherId(), session.getLearnerId(),
+                () -> reserveSession(session));
+        return attachMeeting(reserved);
+    }
+
+    /**
+     * Runs the action while holding the booking locks of both participants. Everything that checks
+     * or changes a participant's bookings goes through here, so a conflict check and the insert it
+     * guards are one atomic step per teacher and learner, without a global lock. Saves made
+     * inside reach async change subscribers once the locks are released, so a slow subscriber
+     * never holds up other bookings.
+     */
+    public <T> T withBookingLocks(Long teacherId, Long learnerId, Supplier<T> action) {
+        Object[] monitors = bookingLocks.orderedLocksFor(
+                teacherId != null ? teacherId : 0L, learnerId != null ? learnerId : 0L);
+        return changeEventBus.deferAsyncDelivery(() -> {
+            synchronized (monitors[0]) {
+                synchronized (monitors[1]) {
+                    return action.get();
+                }
+            }
+        });
+    }
+
+    /**
+     * Checks both participants are free, then saves and books the session.
+     * Callers must hold the participants' booking locks.
+     */
+    public Session reserveSession(Session session) {
+        logger.debug("event=session.create.start type={} teacherId={} learnerId={} scheduledTime={} durationMin={}",
+                session.getSessionType(), session.getTeacherId(), session.getLearnerId(),
+                session.getScheduledTime(), session.getDuration());
 
         // Set initial status
         session.setStatus("scheduled");
+        checkConflicts(session, null);
 
-        // Handle virtual sessions with Google Meet
         if ("virtual".equals(session.getSessionType())) {
-            logger.info("Virtual session detected - attempting Google Meet integration");
-
-            Optional<User> teacherOpt = userService.findById(session.getTeacherId());
-            Optional<User> learnerOpt = userService.findById(session.getLearnerId());
-
-            if (!teacherOpt.isPresent()) {
-                logger.severe("❌ Teacher not found with ID: " + session.getTeacherId());
+            if (!userService.findById(session.getTeacherId()).isPresent()) {
+                logger.warn("event=session.create.failed reason=teacher_not_found teacherId={}", session.getTeacherId());
                 throw new RuntimeException("Teacher not found with ID: " + session.getTeacherId());
             }
-
-            if (!learnerOpt.isPresent()) {
-                logger.severe("❌ Learner not found with ID: " + session.getLearnerId());
+            if (!userService.findById(session.getLearnerId()).isPresent()) {
+                logger.warn("event=session.create.failed reason=learner_not_found learnerId={}", session.getLearnerId());
                 throw new RuntimeException("Learner not found with ID: " + session.getLearnerId());
             }
+        }
+
+        afterConflictCheck.run();
+        Session savedSession = sessionRepository.save(session);
+        scheduleLifecycle(savedSession);
+        logger.info("event=session.created sessionId={} type={} teacherId={} learnerId={}",
+                savedSession.getId(), savedSession.getSessionType(), savedSession.getTeacherId(),
+                savedSession.getLearnerId());
+        return savedSession;
+    }
 
-            User teacher = teacherOpt.get();
-            User learner = learnerOpt.get();
+    /**
+     * Creates the Google Meet link for a reserved virtual session. Runs outside the booking locks
+     * so slow Calendar calls never hold up other bookings.
+     */
+    public Session attachMeeting(Session session) {
+        if (!"virtual".equals(session.getSessionType())) {
+            return session;
+        }
+        Optional<User> teacherOpt = userService.findById(session.getTeacherId());
+        Optional<User> learnerOpt = userService.findById(session.getLearnerId());
+        if (!teacherOpt.isPresent() || !learnerOpt.isPresent()) {
+            return session;
+        }
 
-            logger.info("Teacher: " + teacher.getEmail() + " (" + teacher.getFullName() + ")");
-            logger.info("Learner: " + learner.getEmail() + " (" + learner.getFullName() + ")");
+        User teacher = teacherOpt.get();
+        User learner = learnerOpt.get();
 
-            // Check OAuth status
-            boolean teacherHasToken = teacher.getGoogleAccessToken() != null &&
-                    !teacher.getGoogleAccessToken().isEmpty();
-            boolean learnerHasToken = learner.getGoogleAccessToken() != null &&
-                    !learner.getGoogleAccessToken().isEmpty();
+        // Check OAuth status
+        boolean teacherHasToken = teacher.getGoogleAccessToken() != null &&
+                !teacher.getGoogleAccessToken().isEmpty();
+        boolean learnerHasToken = learner.getGoogleAccessToken() != null &&
+                !learner.getGoogleAccessToken().isEmpty();
 
-            logger.info("Teacher has Google OAuth token: " + teacherHasToken);
-            logger.info("Learner has Google OAuth token: " + learnerHasToken);
+        logger.debug("event=session.create.oauth teacherHasToken={} learnerHasToken={}", teacherHasToken, learnerHasToken);
 
-            // Create Google Meet session - prefer real API if tokens available, otherwise use fallback
-            if (teacherHasToken || learnerHasToken) {
-                logger.info("✅ At least one user has Google OAuth - attempting real Google Meet creation");
-                try {
-                    session = googleMeetService.createCalendarEventsForBothUsers(session, teacher, learner);
+        // Create Google Meet session - prefer real API if tokens available, otherwise use fallback
+        if (teacherHasToken || learnerHasToken) {
+            try {
+                session = googleMeetService.createCalendarEventsForBothUsers(session, teacher, learner);
 
-                    if (session.getMeetingUrl() != null && session.getMeetingUrl().contains("meet.google.com")) {
-                        logger.info("🎉 Successfully created real Google Meet session: " + session.getMeetingUrl());
-                    } else {
-                        logger.warning("⚠️  Calendar API didn't return valid URL, using fallback");
-                    }
-                } catch (Exception e) {
-                    logger.warning("Calendar API failed, using fallback URL generation: " + e.getMessage());
+                if (session.getMeetingUrl() == null || !session.getMeetingUrl().contains("meet.google.com")) {
+                    logger.warn("event=session.create.meet_missing reason=no_meet_url teacherId={} learnerId={}",
+                            session.getTeacherId(), session.getLearnerId());
                 }
-            } else {
-                logger.info("ℹ️  No Google OAuth tokens available - creating basic meeting URL");
-                session.setMeetingUrl("No Google Calendar Authentication Found. Please make sure to login using google again");
+            } catch (Exception e) {
+                logger.warn("event=session.create.meet_failed error=\"{}\"", e.getMessage());
             }
-
-            logger.info("✅ Google Meet session created:");
-            logger.info("   Meeting URL: " + session.getMeetingUrl());
-            logger.info("   Meeting ID: " + session.getMeetingId());
         } else {
-            logger.info("In-person session - no Google Meet integration needed");
+            logger.debug("event=session.create.meet_skipped reason=no_oauth_tokens");
+            session.setMeetingUrl("No Google Calendar Authentication Found. Please make sure to login using google again");
         }
 
-        // Save the session to database
         Session savedSession = sessionRepository.save(session);
-        logger.info("✅ Session saved successfully with ID: " + savedSession.getId());
-        logger.info("=== SESSION CREATION COMPLETE ===");
-
+        logger.info("event=session.meeting_attached sessionId={} meetingId={}",
+                savedSession.getId(), savedSession.getMeetingId());
         return savedSession;
     }
 
@@ -120,19 +204,26 @@ public class SessionService {
     }
 
     public Session updateSessionStatus(Long id, String status) {
-        logger.info("Updating session " + id + " status to: " + status);
 
         Optional<Session> sessionOpt = sessionRepository.findById(id);
         if (sessionOpt.isPresent()) {
             Session session = sessionOpt.get();
-            session.setStatus(status);
-            Session updatedSession = sessionRepository.save(session);
+            Session updatedSession = withBookingLocks(session.getTeacherId(), session.getLearnerId(), () -> {
+                // Reactivating a session must not double-book a slot taken since it was cancelled
+                if (BOOKED_STATUSES.contains(status) && !BOOKED_STATUSES.contains(session.getStatus())) {
+                    checkConflicts(session, id);
+                }
+                session.setStatus(status);
+                Session savedSession = sessionRepository.save(session);
+                scheduleLifecycle(savedSession);
+                return savedSession;
+            });
 
-            logger.info("✅ Session status updated successfully");
+            logger.info("event=session.status_updated sessionId={} status={}", id, status);
             return updatedSession;
         }
 
-        logger.warning("⚠️ Session not found with ID: " + id);
+        logger.warn("event=session.status_update.failed reason=not_found sessionId={}", id);
         return null;
     }
 
@@ -140,35 +231,60 @@ public class SessionService {
      * Updates an existing session
      */
     public Session updateSession(Long id, Session updatedSession) {
-        logger.info("Updating session with ID: " + id);
-
         Optional<Session> existingSessionOpt = sessionRepository.findById(id);
         if (!existingSessionOpt.isPresent()) {
-            logger.warning("⚠️ Session not found with ID: " + id);
+            logger.warn("event=session.update.failed reason=not_found sessionId={}", id);
             throw new RuntimeException("Session not found with ID: " + id);
         }
+        if (updatedSession.getDuration() != null && updatedSession.getDuration() <= 0) {
+            throw new IllegalArgumentException("duration must be positive");
+        }
 
-        Session existingSession = existingSessionOpt.get();
+        // Check and apply the new time and status as one step against the participants' bookings
+        Session existingSession = withBookingLocks(existingSessionOpt.get().getTeacherId(),
+                existingSessionOpt.get().getLearnerId(), () -> {
+                    Session session = existingSessionOpt.get();
+                    if (updatedSession.getScheduledTime() != null || updatedSession.getDuration() != null
+                            || updatedSession.getStatus() != null) {
+                        Session moved = new Session();
+                        moved.setId(id);
+                        moved.setTeacherId(session.getTeacherId());
+                        moved.setLearnerId(session.getLearnerId());
+                        moved.setScheduledTime(updatedSession.getScheduledTime() != null
+                                ? updatedSession.getScheduledTime() : session.getScheduledTime());
+                        moved.setDuration(updatedSession.getDuration() != null
+                                ? updatedSession.getDuration() : session.getDuration());
+                        String status = updatedSession.getStatus() != null
+                                ? updatedSession.getStatus() : session.getStatus();
+                        if (BOOKED_STATUSES.contains(status)) {
+                            checkConflicts(moved, id);
+                        }
+                    }
 
-        // Update fields
-        if (updatedSession.getScheduledTime() != null) {
-            existingSession.setScheduledTime(updatedSession.getScheduledTime());
-        }
-        if (updatedSession.getDuration() != null) {
-            existingSession.setDuration(updatedSession.getDuration());
-        }
-        if (updatedSession.getStatus() != null) {
-            existingSession.setStatus(updatedSession.getStatus());
-        }
-        if (updatedSession.getLocation() != null) {
-            existingSession.setLocation(updatedSession.getLocation());
-        }
+                    // Update fields
+                    if (updatedSession.getScheduledTime() != null) {
+                        session.setScheduledTime(updatedSession.getScheduledTime());
+                    }
+                    if (updatedSession.getDuration() != null) {
+                        session.setDuration(updatedSession.getDuration());
+                    }
+                    if (updatedSession.getStatus() != null) {
+                        session.setStatus(updatedSession.getStatus());
+                    }
+                    if (updatedSession.getLocation() != null) {
+                        session.setLocation(updatedSession.getLocation());
+                    }
+
+                    Session savedSession = sessionRepository.save(session);
+                    scheduleLifecycle(savedSession);
+                    return savedSession;
+                });
 
         // If changing to virtual and no meeting URL exists, create Google Meet
         if ("virtual".equals(updatedSession.getSessionType()) &&
                 existingSession.getMeetingUrl() == null) {
 
-            logger.info("Converting to virtual session - creating Google Meet");
+            logger.debug("event=session.update.convert_virtual sessionId={}", id);
 
             Optional<User> teacherOpt = userService.findById(existingSession.getTeacherId());
             Optional<User> learnerOpt = userService.findById(existingSession.getLearnerId());
@@ -179,53 +295,144 @@ public class SessionService {
                             existingSession, teacherOpt.get(), learnerOpt.get()
                     );
                 } catch (Exception e) {
-                    logger.severe("Failed to create Google Meet for updated session: " + e.getMessage());
+                    logger.error("event=session.update.meet_failed sessionId={}", id, e);
                     throw new RuntimeException("Failed to create Google Meet session", e);
                 }
+                existingSession = sessionRepository.save(existingSession);
             }
         }
 
-        Session savedSession = sessionRepository.save(existingSession);
-        logger.info("✅ Session updated successfully");
+        logger.info("event=session.updated sessionId={}", id);
 
-        return savedSession;
+        return existingSession;
     }
 
     /**
      * Deletes a session
      */
     public void deleteSession(Long id) {
-        logger.info("Deleting session with ID: " + id);
-
         Optional<Session> sessionOpt = sessionRepository.findById(id);
         if (!sessionOpt.isPresent()) {
-            logger.warning("⚠️ Session not found with ID: " + id);
+            logger.warn("event=session.delete.failed reason=not_found sessionId={}", id);
             throw new RuntimeException("Session not found with ID: " + id);
         }
 
         // TODO: Consider canceling the Google Calendar event here
         // This would require storing the event ID and calling the Calendar API to delete it
 
-        sessionRepository.deleteById(id);
-        logger.info("✅ Session deleted successfully");
+        Session session = sessionOpt.get();
+        withBookingLocks(session.getTeacherId(), session.getLearnerId(), () -> {
+            sessionRepository.deleteById(id);
+            lifecycleScheduler.cancel("session:" + id);
+            return null;
+        });
+        logger.info("event=session.deleted sessionId={}", id);
+    }
+
+    /**
+     * Throws when the teacher or learner already has another session overlapping this one
+     */
+    public void checkConflicts(Session session, Long ignoreSessionId) {
+        if (session.getScheduledTime() == null || session.getDuration() == null) {
+            return;
+        }
+        if (session.getDuration() <= 0) {
+            throw new IllegalArgumentException("duration must be positive");
+        }
+        for (Long userId : Arrays.asList(session.getTeacherId(), session.getLearnerId())) {
+            Optional<Long> conflict = scheduleIndex.findConflict(userId, session.getScheduledTime(),
+                    session.getDuration(), ignoreSessionId);
+            if (conflict.isPresent()) {
+                logger.info("event=session.conflict userId={} conflictingSessionId={} scheduledTime={}",
+                        userId, conflict.get(), session.getScheduledTime());
+                throw new BookingConflictException("User " + userId + " already has a session at "
+                        + session.getScheduledTime() + " (session " + conflict.get() + ")");
+            }
+        }
+    }
+
+    /**
+     * Keeps both participants' bookings in line with the session's time and status
+     */
+    private void bookParticipants(Session session) {
+        boolean booked = BOOKED_STATUSES.contains(session.getStatus())
+                && session.getScheduledTime() != null && session.getDuration() != null && session.getDuration() > 0;
+        for (Long userId : Arrays.asList(session.getTeacherId(), session.getLearnerId())) {
+            if (!booked) {
+                scheduleIndex.release(userId, session.getId());
+            } else if (!scheduleIndex.book(userId, session.getId(), session.getScheduledTime(), session.getDuration())) {
+                logger.warn("event=session.booking_overlap sessionId={} userId={}", session.getId(), userId);
+            }
+        }
+    }
+
+    /**
+     * Replaces the session's timers: a reminder before it starts, then the moves to in_progress
+     * and completed. Inactive sessions just have their timers cancelled.
+     */
+    private void scheduleLifecycle(Session session) {
+        String owner = "session:" + session.getId();
+        lifecycleScheduler.cancel(owner);
+        if (!BOOKED_STATUSES.contains(session.getStatus())
+                || session.getScheduledTime() == null || session.getDuration() == null) {
+            return;
+        }
+        Long id = session.getId();
+        long startMs = session.getScheduledTime().toInstant().toEpochMilli();
+        long endMs = startMs + session.getDuration() * 60_000L;
+        if (!"in_progress".equals(session.getStatus())) {
+            long reminderMs = startMs - reminderLeadMinutes * 60_000L;
+            if (reminderMs > System.currentTimeMillis()) {
+                lifecycleScheduler.schedule(owner, reminderMs, () -> sendReminder(id));
+            }
+            lifecycleScheduler.schedule(owner, startMs, () -> advanceStatus(id, "in_progress"));
+        }
+        lifecycleScheduler.schedule(owner, endMs, () -> advanceStatus(id, "completed"));
+    }
+
+    private void sendReminder(Long id) {
+        sessionRepository.findById(id).ifPresent(session -> {
+            logger.info("event=session.reminder sessionId={} scheduledTime={}", id, session.getScheduledTime());
+            for (SessionReminderHook hook : reminderHooks) {
+                hook.remind(session);
+            }
+        });
+    }
+
+    /**
+     * Moves a still-active session forward, e.g. scheduled to in_progress; never moves it back
+     */
+    private void advanceStatus(Long id, String status) {
+        Optional<Session> sessionOpt = sessionRepository.findById(id);
+        if (!sessionOpt.isPresent()) {
+            return;
+        }
+        Session session = sessionOpt.get();
+        withBookingLocks(session.getTeacherId(), session.getLearnerId(), () -> {
+            if (!BOOKED_STATUSES.contains(session.getStatus()) || status.equals(session.getStatus())) {
+                return null;
+            }
+            session.setStatus(status);
+            scheduleLifecycle(sessionRepository.save(session));
+            logger.info("event=session.status_advanced sessionId={} status={}", id, status);
+            return null;
+        });
     }
 
     /**
      * Test method to verify Google Meet functionality for a user
      */
     public boolean testUserGoogleMeetAccess(Long userId) {
-        logger.info("Testing Google Meet access for user ID: " + userId);
-
         Optional<User> userOpt = userService.findById(userId);
         if (!userOpt.isPresent()) {
-            logger.warning("User not found with ID: " + userId);
+            logger.warn("event=google.meet_access_test.failed reason=user_not_found userId={}", userId);
             return false;
         }
 
         User user = userOpt.get();
 
         if (user.getGoogleAccessToken() == null || user.getGoogleAccessToken().isEmpty()) {
-            logger.info("User has no Google OAuth token");
+            logger.debug("event=google.meet_access_test.skipped reason=no_oauth_token userId={}", userId);
             return false;
         }
 
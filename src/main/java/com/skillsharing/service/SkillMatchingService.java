@@ -0,0 +1,104 @@
+package com.skillsharing.service;
+
+import com.skillsharing.dto.SkillMatch;
+import com.skillsharing.index.SkillIndex;
+import com.skillsharing.model.User;
+import com.skillsharing.model.UserDTO;
+import com.skillsharing.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Pairs a learner's wanted skills with teachers' offered skills using the skill index,
+ * so only users sharing at least one skill with the learner are ever scored.
+ */
+@Service
+public class SkillMatchingService {
+
+    private static final double EXCHANGE_WEIGHT = 0.5;
+    private static final double RATING_WEIGHT = 1.0;
+
+    @Autowired
+    private SkillIndex skillIndex;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    public List<SkillMatch> findMatches(Long learnerId, int limit) {
+        Map<Long, Candidate> candidates = new HashMap<>();
+
+        for (Map.Entry<String, Integer> wanted : skillIndex.wantedSkillsOf(learnerId).entrySet()) {
+            for (Map.Entry<Long, Integer> offering : skillIndex.findOffering(wanted.getKey()).entrySet()) {
+                if (offering.getKey().equals(learnerId)) {
+                    continue;
+                }
+                Candidate candidate = candidates.computeIfAbsent(offering.getKey(), Candidate::new);
+                candidate.score += 1.0 + levelCompatibility(offering.getValue(), wanted.getValue());
+                candidate.matchedSkills.add(wanted.getKey());
+            }
+        }
+
+        // Bonus for teachers who want something the learner can teach back
+        for (String offered : skillIndex.offeredSkillsOf(learnerId).keySet()) {
+            for (Long wantingUserId : skillIndex.findWanting(offered).keySet()) {
+                Candidate candidate = candidates.get(wantingUserId);
+                if (candidate != null) {
+                    candidate.score += EXCHANGE_WEIGHT;
+                    candidate.exchangeSkills.add(offered);
+                }
+            }
+        }
+
+        // Bounded min-heap keeps only the best `limit` candidates
+        PriorityQueue<Candidate> top = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(c -> c.score));
+        for (Candidate candidate : candidates.values()) {
+            Optional<User> teacher = userRepository.findById(candidate.userId);
+            if (!teacher.isPresent()) {
+                continue;
+            }
+            candidate.teacher = teacher.get();
+            double rating = teacher.get().getRating() != null ? teacher.get().getRating() : 0.0;
+            candidate.score += RATING_WEIGHT * rating / 5.0;
+            top.offer(candidate);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<SkillMatch> matches = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            Candidate candidate = top.poll();
+            matches.add(new SkillMatch(new UserDTO(candidate.teacher), candidate.score,
+                    candidate.matchedSkills, candidate.exchangeSkills));
+        }
+        Collections.reverse(matches);
+        return matches;
+    }
+
+    /**
+     * The learner's level on a wanted skill is where they are now, so a teacher above it fits best
+     */
+    private double levelCompatibility(int teacherLevel, int learnerLevel) {
+        if (teacherLevel == 0 || learnerLevel == 0) {
+            return 0.5;
+        }
+        if (teacherLevel > learnerLevel) {
+            return 1.0;
+        }
+        return teacherLevel == learnerLevel ? 0.5 : 0.0;
+    }
+
+    private static final class Candidate {
+        private final Long userId;
+        private final List<String> matchedSkills = new ArrayList<>();
+        private final List<String> exchangeSkills = new ArrayList<>();
+        private double score;
+        private User teacher;
+
+        private Candidate(Long userId) {
+            this.userId = userId;
+        }
+    }
+}
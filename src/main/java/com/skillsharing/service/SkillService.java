@@ -0,0 +1,96 @@
+package com.skillsharing.service;
+
+import com.skillsharing.model.Skill;
+import com.skillsharing.model.User;
+import com.skillsharing.model.UserSkill;
+import com.skillsharing.repository.SkillRepository;
+import com.skillsharing.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+
+/**
+ * The canonical skill catalog: one shared {@link Skill} per normalized (name, category)
+ */
+@Service
+public class SkillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SkillService.class);
+
+    @Autowired
+    private SkillRepository skillRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    public List<Skill> getCatalog(String category) {
+        List<Skill> skills = category != null ? skillRepository.findByCategory(category) : skillRepository.findAll();
+        skills.sort(Comparator.comparing(Skill::getName, String.CASE_INSENSITIVE_ORDER));
+        return skills;
+    }
+
+    public Optional<Skill> findById(Long id) {
+        return skillRepository.findById(id);
+    }
+
+    /**
+     * Points every user skill at its catalog entry and drops the per-add duplicate rows the old
+     * scheme left behind. Idempotent; a no-op once the data is canonical.
+     */
+    @PostConstruct
+    public void migrateToCatalog() {
+        long rowsBefore = skillRepository.count();
+        int links = 0;
+        int relinked = 0;
+        for (User user : userRepository.findAll()) {
+            int userRelinked = canonicalize(user.getOfferedSkills()) + canonicalize(user.getWantedSkills());
+            links += user.getOfferedSkills().size() + user.getWantedSkills().size();
+            if (userRelinked > 0) {
+                userRepository.save(user);
+                relinked += userRelinked;
+            }
+        }
+        for (Skill skill : skillRepository.findAll()) {
+            Optional<Skill> canonical = skillRepository.findByKey(skill.getName(), skill.getCategory());
+            if (!canonical.isPresent() || canonical.get() != skill) {
+                skillRepository.deleteById(skill.getId());
+            }
+        }
+        logger.info("event=skill_catalog.migrated links={} relinked={} rowsBefore={} rowsAfter={}",
+                links, relinked, rowsBefore, skillRepository.count());
+    }
+
+    private int canonicalize(List<UserSkill> userSkills) {
+        int relinked = 0;
+        Set<Skill> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Iterator<UserSkill> iterator = userSkills.iterator();
+        while (iterator.hasNext()) {
+            UserSkill userSkill = iterator.next();
+            Skill current = userSkill.getSkill();
+            if (current == null || current.getName() == null) {
+                iterator.remove();
+                relinked++;
+                continue;
+            }
+            Skill canonical = skillRepository.intern(current.getName(), current.getCategory(), current.getDescription());
+            if (!seen.add(canonical)) {
+                // Same skill added twice under the old scheme; keep the first link
+                iterator.remove();
+                relinked++;
+                continue;
+            }
+            if (canonical != current) {
+                userSkill.setSkill(canonical);
+                relinked++;
+            }
+            if (userSkill.getLevel() != null) {
+                userSkill.setLevel(userSkill.getLevel().intern());
+            }
+        }
+        return relinked;
+    }
+}
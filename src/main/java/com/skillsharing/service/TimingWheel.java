@@ -0,0 +1,164 @@
+package com.skillsharing.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hierarchical hashed timing wheel. Four levels of 64 slots cover about 194 days at one-second
+ * ticks; a timeout cascades down at most once per level, so scheduling, cancelling and firing
+ * are O(1) amortized however many timeouts are pending. Timeouts further out wait in the top
+ * level and are re-placed each time it comes round.
+ *
+ * <p>The wheel itself is confined to the thread calling {@link #advanceTo}; other threads only
+ * enqueue new timeouts or flag them cancelled.
+ */
+public class TimingWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheel.class);
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+    private static final long SPAN = 1L << (SLOT_BITS * LEVELS);
+
+    private final long tickMs;
+    private final long startMs;
+    private final List<List<Timeout>> slots = new ArrayList<>(LEVELS * SLOTS);
+    private final Queue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private long currentTick;
+
+    public TimingWheel(long tickMs, long startMs) {
+        this.tickMs = tickMs;
+        this.startMs = startMs;
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Schedules the task to run on the first tick at or after deadlineMs. Safe from any thread.
+     */
+    public Timeout schedule(long deadlineMs, Runnable task) {
+        long deadlineTick = Math.max(0, (deadlineMs - startMs + tickMs - 1) / tickMs);
+        Timeout timeout = new Timeout(deadlineTick, task);
+        incoming.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Runs every timeout due by nowMs. Must only be called from the wheel's own thread.
+     */
+    public void advanceTo(long nowMs) {
+        long targetTick = (nowMs - startMs) / tickMs;
+        drainIncoming();
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade(1);
+            expire(slot(0, (int) (currentTick & (SLOTS - 1))));
+            // Timeouts added while this tick ran may already be due
+            drainIncoming();
+        }
+    }
+
+    private void drainIncoming() {
+        Timeout timeout;
+        while ((timeout = incoming.poll()) != null) {
+            if (!timeout.cancelled) {
+                place(timeout);
+            }
+        }
+    }
+
+    private void place(Timeout timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        if (delta <= 0) {
+            run(timeout);
+            return;
+        }
+        long placementTick = Math.min(timeout.deadlineTick, currentTick + SPAN - 1);
+        int level = 0;
+        while (level < LEVELS - 1 && placementTick - currentTick >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int index = (int) ((placementTick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+        slot(level, index).add(timeout);
+    }
+
+    /**
+     * When a level wraps, moves the next slot of the level above down to finer levels
+     */
+    private void cascade(int level) {
+        if (level >= LEVELS || (currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+            return;
+        }
+        // Empty the coarser level first so its timeouts can land in the slot cascaded below
+        cascade(level + 1);
+        List<Timeout> bucket = slot(level, (int) ((currentTick >>> (SLOT_BITS * level)) & (SLOTS - 1)));
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<Timeout> moved = new ArrayList<>(bucket);
+        bucket.clear();
+        for (Timeout timeout : moved) {
+            if (!timeout.cancelled) {
+                place(timeout);
+            }
+        }
+    }
+
+    private void expire(List<Timeout> bucket) {
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<Timeout> due = new ArrayList<>(bucket);
+        bucket.clear();
+        for (Timeout timeout : due) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            if (timeout.deadlineTick > currentTick) {
+                place(timeout);
+            } else {
+                run(timeout);
+            }
+        }
+    }
+
+    private void run(Timeout timeout) {
+        if (timeout.cancelled) {
+            return;
+        }
+        try {
+            timeout.task.run();
+        } catch (RuntimeException e) {
+            logger.error("event=timing_wheel.task_failed deadlineTick={}", timeout.deadlineTick, e);
+        }
+    }
+
+    private List<Timeout> slot(int level, int index) {
+        return slots.get(level * SLOTS + index);
+    }
+
+    public static final class Timeout {
+        private final long deadlineTick;
+        private final Runnable task;
+        private volatile boolean cancelled;
+
+        private Timeout(long deadlineTick, Runnable task) {
+            this.deadlineTick = deadlineTick;
+            this.task = task;
+        }
+
+        /**
+         * Prevents the task from running; the entry itself is dropped when its slot is next visited
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
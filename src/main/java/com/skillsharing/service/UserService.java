@@ -1,18 +1,47 @@
 package com.skillsharing.service;
 
+import com.skillsharing.dto.NearbyUser;
+import com.skillsharing.dto.SkillSuggestion;
+import com.skillsharing.dto.TimeSlot;
+import com.skillsharing.dto.SearchResult;
+import com.skillsharing.dto.UserBrowseResponse;
+import com.skillsharing.dto.UserSummary;
+import com.skillsharing.events.ChangeEvent;
+import com.skillsharing.events.ChangeEventBus;
+import com.skillsharing.index.FacetIndex;
+import com.skillsharing.index.GeoIndex;
+import com.skillsharing.index.TextIndex;
+import com.skillsharing.index.ScheduleIndex;
+import com.skillsharing.index.SkillIndex;
+import com.skillsharing.index.TeacherLeaderboard;
 import com.skillsharing.model.Skill;
 import com.skillsharing.model.User;
+import com.skillsharing.model.UserDTO;
+import com.skillsharing.model.UserSkill;
 import com.skillsharing.repository.SkillRepository;
 import com.skillsharing.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class UserService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
     
     @Autowired
     private UserRepository userRepository;
@@ -22,6 +51,39 @@ public class UserService {
 
     @Autowired
     private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private SkillIndex skillIndex;
+
+    @Autowired
+    private TeacherLeaderboard teacherLeaderboard;
+
+    @Autowired
+    private ScheduleIndex scheduleIndex;
+
+    @Autowired
+    private GeoIndex geoIndex;
+
+    @Autowired
+    private FacetIndex facetIndex;
+
+    @Autowired
+    private TextIndex textIndex;
+
+    @Autowired
+    private ChangeEventBus changeEventBus;
+
+    private static final int MAX_FACET_VALUES = 20;
+
+    private static final int MAX_SEARCH_SKILLS = 10;
+
+    // Below this many teachers for a skill, checking each one's distance beats a spatial lookup
+    private static final int SMALL_SKILL_POSTINGS = 256;
+
+    @PostConstruct
+    public void subscribeToChanges() {
+        changeEventBus.subscribe("user-indexes", this::onChange);
+    }
     
     public User registerUser(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
@@ -47,9 +109,146 @@ public class UserService {
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
+
+    /**
+     * Summaries of the users with these IDs, each once, in first-requested order. Unknown and
+     * null IDs are skipped.
+     */
+    public Map<Long, UserSummary> findSummaries(Collection<Long> ids) {
+        Map<Long, UserSummary> summaries = new LinkedHashMap<>();
+        for (Long id : ids) {
+            if (id != null && !summaries.containsKey(id)) {
+                userRepository.findById(id).ifPresent(user -> summaries.put(id, new UserSummary(user)));
+            }
+        }
+        return summaries;
+    }
     
+    /**
+     * Users offering a skill that matches the name, tolerating typos. Users of the best-ranked
+     * skills come first, each skill's teachers ordered by rating.
+     */
     public List<User> searchBySkill(String skillName) {
-        return userRepository.searchBySkill(skillName);
+        Map<Long, User> found = new LinkedHashMap<>();
+        for (SkillSuggestion suggestion : skillIndex.searchSkills(skillName, MAX_SEARCH_SKILLS)) {
+            skillIndex.findOffering(suggestion.getName()).keySet().stream()
+                    .filter(userId -> !found.containsKey(userId))
+                    .map(userRepository::findById)
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .sorted(Comparator.comparing(User::getRating).reversed())
+                    .forEach(user -> found.put(user.getId(), user));
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    public List<SkillSuggestion> suggestSkills(String query, int limit) {
+        return skillIndex.searchSkills(query, limit);
+    }
+
+    public List<String> completeSkill(String prefix, int limit) {
+        return skillIndex.completeSkill(prefix, limit);
+    }
+
+    public List<String> completeUsername(String prefix, int limit) {
+        return userRepository.completeUsername(prefix, limit);
+    }
+
+    public boolean isUsernameTaken(String username) {
+        return userRepository.existsByUsername(username);
+    }
+    
+    /**
+     * Top-rated teachers offering the skill, or any skill in the category when no skill is given
+     */
+    public List<User> getLeaderboard(String skill, String category, int page, int size) {
+        List<Long> userIds = skill != null
+                ? teacherLeaderboard.topForSkill(skill, page * size, size)
+                : teacherLeaderboard.topForCategory(category, page * size, size);
+        return userIds.stream()
+                .map(userRepository::findById)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Free slots of at least the given length within the user's declared availability
+     */
+    public List<TimeSlot> getFreeSlots(Long userId, OffsetDateTime from, OffsetDateTime to, int minutes) {
+        return scheduleIndex.findFreeSlots(userId, from, to, minutes);
+    }
+    
+    /**
+     * Users within radiusKm of the point, nearest first, optionally only those offering the skill
+     */
+    public List<NearbyUser> findNearby(double latitude, double longitude, double radiusKm, String skill, int limit) {
+        Map<Long, Double> distances;
+        if (skill == null || skill.trim().isEmpty()) {
+            distances = geoIndex.findWithin(latitude, longitude, radiusKm);
+        } else {
+            Map<Long, Integer> offering = skillIndex.findOffering(skill);
+            distances = new HashMap<>();
+            if (offering.size() <= SMALL_SKILL_POSTINGS) {
+                for (Long userId : offering.keySet()) {
+                    Double distance = geoIndex.distanceTo(userId, latitude, longitude);
+                    if (distance != null && distance <= radiusKm) {
+                        distances.put(userId, distance);
+                    }
+                }
+            } else {
+                Map<Long, Double> nearby = geoIndex.findWithin(latitude, longitude, radiusKm);
+                nearby.forEach((userId, distance) -> {
+                    if (offering.containsKey(userId)) {
+                        distances.put(userId, distance);
+                    }
+                });
+            }
+        }
+        return distances.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue())
+                .limit(limit)
+                .map(entry -> userRepository.findById(entry.getKey())
+                        .map(user -> new NearbyUser(new UserDTO(user), entry.getValue())))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Users whose name, bio or skills best match the free-text query, by BM25 score
+     */
+    public List<SearchResult> searchText(String query, int limit) {
+        List<SearchResult> results = new ArrayList<>();
+        textIndex.search(query, limit).forEach((userId, score) ->
+                userRepository.findById(userId).ifPresent(user -> results.add(new SearchResult(new UserDTO(user), score))));
+        return results;
+    }
+
+    /**
+     * Users matching every given facet (any value within a facet), with live facet counts.
+     * minRating selects the rating buckets at or above it.
+     */
+    public UserBrowseResponse browse(List<String> categories, List<String> levels, Integer minRating,
+                                     List<String> locations, int page, int size) {
+        Map<String, List<String>> filters = new HashMap<>();
+        filters.put(FacetIndex.CATEGORY, categories);
+        filters.put(FacetIndex.LEVEL, levels);
+        filters.put(FacetIndex.LOCATION, locations);
+        if (minRating != null) {
+            List<String> buckets = new ArrayList<>();
+            for (int stars = Math.max(1, minRating); stars <= 5; stars++) {
+                buckets.add(String.valueOf(stars));
+            }
+            filters.put(FacetIndex.RATING, buckets);
+        }
+        FacetIndex.Result result = facetIndex.query(filters, page * size, size, MAX_FACET_VALUES);
+        List<UserDTO> users = result.getUserIds().stream()
+                .map(userRepository::findById)
+                .filter(Optional::isPresent)
+                .map(user -> new UserDTO(user.get()))
+                .collect(Collectors.toList());
+        return new UserBrowseResponse(result.getTotal(), users, result.getCounts());
     }
     
     public User updateUser(Long id, User updatedUser) {
@@ -78,6 +277,13 @@ public class UserService {
             if (updatedUser.getAvailability() != null) {
                 user.setAvailability(updatedUser.getAvailability());
             }
+            if (updatedUser.getLatitude() != null && updatedUser.getLongitude() != null) {
+                if (!GeoIndex.isValid(updatedUser.getLatitude(), updatedUser.getLongitude())) {
+                    throw new RuntimeException("Invalid coordinates");
+                }
+                user.setLatitude(updatedUser.getLatitude());
+                user.setLongitude(updatedUser.getLongitude());
+            }
             if (updatedUser.getPassword() != null && !updatedUser.getPassword().trim().isEmpty()) {
                 user.setPassword(passwordEncoder.encode(updatedUser.getPassword()));
             }
@@ -95,9 +301,7 @@ public class UserService {
         Optional<User> userOpt = userRepository.findById(userId);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
-            // Ensure skill has an ID by saving it through the repository
-            Skill savedSkill = skillRepository.save(skill);
-            user.getOfferedSkills().add(savedSkill);
+            link(user.getOfferedSkills(), skill);
             return userRepository.save(user);
         }
         return null;
@@ -107,47 +311,51 @@ public class UserService {
         Optional<User> userOpt = userRepository.findById(userId);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
-            // Ensure skill has an ID by saving it through the repository
-            Skill savedSkill = skillRepository.save(skill);
-            user.getWantedSkills().add(savedSkill);
+            link(user.getWantedSkills(), skill);
             return userRepository.save(user);
         }
         return null;
     }
 
+    /**
+     * Points the user at the shared catalog skill, updating the level if they already have it
+     */
+    private void link(List<UserSkill> userSkills, Skill requested) {
+        Skill canonical = skillRepository.intern(requested.getName(), requested.getCategory(), requested.getDescription());
+        // Levels come from a handful of values, so interning keeps one copy of each
+        String level = requested.getLevel() != null ? requested.getLevel().trim().intern() : null;
+        for (UserSkill userSkill : userSkills) {
+            if (userSkill.getSkill() == canonical) {
+                userSkill.setLevel(level);
+                return;
+            }
+        }
+        userSkills.add(new UserSkill(canonical, level));
+    }
+
     public User removeWantedSkill(Long userId, Long skillId) {
-        System.out.println("Removing wanted skill - User ID: " + userId + ", Skill ID: " + skillId);
         Optional<User> userOpt = userRepository.findById(userId);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
-            System.out.println("Found user with " + user.getWantedSkills().size() + " wanted skills");
-            System.out.println("Skill IDs in wantedSkills:");
-            for (Skill s : user.getWantedSkills()) {
-                System.out.println("  Skill ID: " + s.getId() + ", Name: " + s.getName());
-            }
-            boolean removed = user.getWantedSkills().removeIf(skill -> skill.getId().equals(skillId));
-            System.out.println("Skill removal result: " + removed + ", remaining skills: " + user.getWantedSkills().size());
+            boolean removed = user.getWantedSkills().removeIf(skill -> skillId.equals(skill.getId()));
+            logger.debug("event=user.skill_removed kind=wanted userId={} skillId={} removed={} remaining={}",
+                    userId, skillId, removed, user.getWantedSkills().size());
             return userRepository.save(user);
         }
-        System.out.println("User not found with ID: " + userId);
+        logger.debug("event=user.skill_remove.failed kind=wanted reason=user_not_found userId={}", userId);
         return null;
     }
 
     public User removeOfferedSkill(Long userId, Long skillId) {
-        System.out.println("Removing offered skill - User ID: " + userId + ", Skill ID: " + skillId);
         Optional<User> userOpt = userRepository.findById(userId);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
-            System.out.println("Found user with " + user.getOfferedSkills().size() + " offered skills");
-            System.out.println("Skill IDs in offeredSkills:");
-            for (Skill s : user.getOfferedSkills()) {
-                System.out.println("  Skill ID: " + s.getId() + ", Name: " + s.getName());
-            }
-            boolean removed = user.getOfferedSkills().removeIf(skill -> skill.getId().equals(skillId));
-            System.out.println("Skill removal result: " + removed + ", remaining skills: " + user.getOfferedSkills().size());
+            boolean removed = user.getOfferedSkills().removeIf(skill -> skillId.equals(skill.getId()));
+            logger.debug("event=user.skill_removed kind=offered userId={} skillId={} removed={} remaining={}",
+                    userId, skillId, removed, user.getOfferedSkills().size());
             return userRepository.save(user);
         }
-        System.out.println("User not found with ID: " + userId);
+        logger.debug("event=user.skill_remove.failed kind=offered reason=user_not_found userId={}", userId);
         return null;
     }
     
@@ -155,12 +363,34 @@ public class UserService {
         Optional<User> userOpt = userRepository.findById(userId);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
-            int totalReviews = user.getTotalReviews();
-            double currentRating = user.getRating();
-            double updatedRating = ((currentRating * totalReviews) + newRating) / (totalReviews + 1);
-            user.setRating(updatedRating);
-            user.setTotalReviews(totalReviews + 1);
+            // Lock-free accumulation; the user's rating is derived from these aggregates on read
+            user.getRatingStats().record((int) Math.round(newRating));
             userRepository.save(user);
         }
     }
+
+    /**
+     * Keeps every user index in line with the user store, whichever code path saved the user
+     */
+    private void onChange(ChangeEvent event) {
+        if (!event.isFor(ChangeEvent.USERS)) {
+            return;
+        }
+        if (event.isDelete()) {
+            skillIndex.remove(event.getId());
+            teacherLeaderboard.remove(event.getId());
+            facetIndex.remove(event.getId());
+            textIndex.remove(event.getId());
+            geoIndex.remove(event.getId());
+            scheduleIndex.setAvailability(event.getId(), null);
+            return;
+        }
+        User user = (User) event.getEntity();
+        scheduleIndex.setAvailability(user.getId(), user.getAvailability());
+        geoIndex.update(user.getId(), user.getLatitude(), user.getLongitude());
+        skillIndex.index(user);
+        teacherLeaderboard.update(user);
+        facetIndex.update(user);
+        textIndex.index(user);
+    }
 }
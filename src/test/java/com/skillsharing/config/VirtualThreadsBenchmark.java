@@ -0,0 +1,144 @@
+package com.skillsharing.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillsharing.SkillSharingApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Request throughput with threads.virtual off and on, the app booted in process on a random
+ * port each time. Two workloads: an endpoint blocking for UPSTREAM_DELAY_MS, standing in for the
+ * Google calls request threads wait on, and GET /api/users/{id}, which only uses the CPU.
+ *
+ * <p>Not part of the default test run; needs a Java 21+ runtime:
+ * mvn test -Dtest=VirtualThreadsBenchmark -Djvm=/path/to/jdk-21/bin/java
+ */
+class VirtualThreadsBenchmark {
+
+    private static final long UPSTREAM_DELAY_MS = 50;
+
+    private static final int CONCURRENCY = 400;
+
+    private static final int WARM_UP_REQUESTS = 2_000;
+
+    private static final int REQUESTS = 8_000;
+
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    @Test
+    void blockingRequestsOnVirtualAndPlatformThreads() throws Exception {
+        assumeTrue(VirtualThreads.isAvailable(), "needs Java 21+, running " + Runtime.version());
+
+        List<String> report = new ArrayList<>();
+        for (boolean virtual : new boolean[] {false, true}) {
+            try (ConfigurableApplicationContext app = start(virtual)) {
+                String base = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+                JsonNode user = register(base);
+                String token = user.get("token").asText();
+
+                String thread = send(base + "/benchmark/upstream", token).body();
+                assertThat(thread.startsWith("VirtualThread")).as(thread).isEqualTo(virtual);
+
+                String mode = virtual ? "virtual" : "platform";
+                report.add(measure(mode, "upstream", base + "/benchmark/upstream", token));
+                report.add(measure(mode, "user", base + "/api/users/" + user.get("userId").asLong(), token));
+            }
+        }
+        report.forEach(System.out::println);
+    }
+
+    private String measure(String mode, String workload, String url, String token) throws Exception {
+        run(url, token, WARM_UP_REQUESTS);
+        long start = System.nanoTime();
+        List<Long> latencies = run(url, token, REQUESTS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Collections.sort(latencies);
+        return String.format("event=threads.benchmark mode=%s workload=%s concurrency=%d rps=%.0f p50Ms=%.1f p99Ms=%.1f",
+                mode, workload, CONCURRENCY, REQUESTS / seconds,
+                latencies.get(REQUESTS / 2) / 1e6, latencies.get(REQUESTS * 99 / 100) / 1e6);
+    }
+
+    // Keeps CONCURRENCY requests in flight until count have completed; returns their latencies in nanoseconds
+    private List<Long> run(String url, String token, int count) throws Exception {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(count));
+        AtomicInteger failures = new AtomicInteger();
+        List<CompletableFuture<Void>> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            requests.add(http.sendAsync(get(url, token), HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        latencies.add(System.nanoTime() - sent);
+                        if (error != null || response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                        inFlight.release();
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(requests.toArray(new CompletableFuture[0])).join();
+        assertThat(failures).hasValue(0);
+        return latencies;
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtual) {
+        // As arguments, since application.properties would override default properties
+        return new SpringApplicationBuilder(SkillSharingApplication.class, SlowUpstreamController.class)
+                .run("--server.port=0", "--threads.virtual=" + virtual, "--spring.jpa.show-sql=false",
+                        "--spring.devtools.restart.enabled=false", "--spring.devtools.livereload.enabled=false");
+    }
+
+    private JsonNode register(String base) throws Exception {
+        String body = "{\"username\":\"bench\",\"email\":\"bench@example.com\",\"password\":\"secret1\",\"fullName\":\"Bench\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).as(response.body()).isEqualTo(200);
+        return json.readTree(response.body());
+    }
+
+    private HttpResponse<String> send(String url, String token) throws Exception {
+        return http.send(get(url, token), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpRequest get(String url, String token) {
+        return HttpRequest.newBuilder(URI.create(url)).header("Authorization", "Bearer " + token).GET().build();
+    }
+
+    /**
+     * Blocks the request thread the way a call to Google does, and names it
+     */
+    @RestController
+    static class SlowUpstreamController {
+
+        @GetMapping("/benchmark/upstream")
+        public String upstream() throws InterruptedException {
+            Thread.sleep(UPSTREAM_DELAY_MS);
+            return Thread.currentThread().toString();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.skillsharing.controller;
+
+import com.skillsharing.model.SessionRequest;
+import com.skillsharing.model.User;
+import com.skillsharing.service.SessionRequestService;
+import com.skillsharing.service.SessionService;
+import com.skillsharing.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fires approvals in parallel, all released at once, and checks that exactly one wins. Whichever
+ * approval passes the conflict check first is held there until a second one passes it too, or
+ * HOLD_MS runs out. Under the booking locks no second approval can get there, so the hold times
+ * out; without them two approvals always reach the save, even on a single CPU, and both book.
+ */
+@SpringBootTest
+class SessionRequestApprovalConcurrencyTest {
+
+    private static final int PARALLELISM = 64;
+
+    private static final int ROUNDS = 5;
+
+    private static final long HOLD_MS = 300;
+
+    private static final AtomicInteger userIndex = new AtomicInteger();
+
+    @Autowired
+    private SessionRequestController sessionRequestController;
+
+    @Autowired
+    private SessionRequestService sessionRequestService;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private UserService userService;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(PARALLELISM);
+
+    @AfterEach
+    void stopPool() {
+        pool.shutdownNow();
+        ReflectionTestUtils.setField(sessionService, "afterConflictCheck", (Runnable) () -> { });
+    }
+
+    @Test
+    void approvingTheSameRequestInParallelCreatesOneSession() throws Exception {
+        User teacher = newUser();
+        User learner = newUser();
+        OffsetDateTime start = OffsetDateTime.parse("2030-01-07T00:00:00Z");
+        for (int round = 0; round < ROUNDS; round++) {
+            SessionRequest request = sessionRequestService.createSessionRequest(
+                    newRequest(teacher, learner, start.plusHours(2L * round)));
+
+            List<Integer> statuses = approveInParallel(Collections.nCopies(PARALLELISM, request.getId()));
+
+            assertThat(statuses).filteredOn(status -> status == 200).hasSize(1);
+            assertThat(statuses).filteredOn(status -> status == 409).hasSize(PARALLELISM - 1);
+            assertThat(sessionService.getSessionsByTeacher(teacher.getId())).hasSize(round + 1);
+        }
+        assertThat(sessionService.getSessionsByLearner(learner.getId())).hasSize(ROUNDS);
+    }
+
+    @Test
+    void approvingOverlappingRequestsInParallelBooksTheTeacherOnce() throws Exception {
+        User teacher = newUser();
+        List<User> learners = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            learners.add(newUser());
+        }
+        OffsetDateTime start = OffsetDateTime.parse("2030-03-04T00:00:00Z");
+        for (int round = 0; round < ROUNDS; round++) {
+            // Different learners, so only the teacher's bookings stand between the approvals
+            List<Long> requestIds = new ArrayList<>();
+            for (int i = 0; i < learners.size(); i++) {
+                SessionRequest request = sessionRequestService.createSessionRequest(
+                        newRequest(teacher, learners.get(i), start.plusHours(2L * round).plusMinutes(i)));
+                requestIds.add(request.getId());
+            }
+
+            List<Integer> statuses = approveInParallel(requestIds);
+
+            assertThat(statuses).filteredOn(status -> status == 200).hasSize(1);
+            assertThat(statuses).filteredOn(status -> status == 409).hasSize(requestIds.size() - 1);
+            assertThat(sessionService.getSessionsByTeacher(teacher.getId())).hasSize(round + 1);
+        }
+    }
+
+    private List<Integer> approveInParallel(List<Long> requestIds) throws Exception {
+        CountDownLatch twoChecked = new CountDownLatch(2);
+        ReflectionTestUtils.setField(sessionService, "afterConflictCheck", (Runnable) () -> {
+            twoChecked.countDown();
+            try {
+                twoChecked.await(HOLD_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CountDownLatch ready = new CountDownLatch(requestIds.size());
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Integer>> responses = new ArrayList<>();
+        for (Long requestId : requestIds) {
+            responses.add(pool.submit(() -> {
+                ready.countDown();
+                go.await();
+                return sessionRequestController.approveRequest(requestId, null).getStatusCodeValue();
+            }));
+        }
+        ready.await();
+        go.countDown();
+        List<Integer> statuses = new ArrayList<>();
+        for (Future<Integer> response : responses) {
+            statuses.add(response.get());
+        }
+        return statuses;
+    }
+
+    private User newUser() {
+        int index = userIndex.incrementAndGet();
+        User user = new User();
+        user.setUsername("approval-user-" + index);
+        user.setEmail("approval-user-" + index + "@example.com");
+        user.setPassword("secret1");
+        user.setFullName("Approval User " + index);
+        return userService.registerUser(user);
+    }
+
+    private static SessionRequest newRequest(User teacher, User learner, OffsetDateTime start) {
+        SessionRequest request = new SessionRequest();
+        request.setTeacherId(teacher.getId());
+        request.setLearnerId(learner.getId());
+        request.setRequestedTime(start);
+        request.setDuration(60);
+        request.setSessionType("in_person");
+        return request;
+    }
+}
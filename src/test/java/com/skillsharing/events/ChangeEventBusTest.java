@@ -0,0 +1,208 @@
+package com.skillsharing.events;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Async delivery through a small ring: order across many wraparounds, idle subscribers parking
+ * until the next event, a stalled subscriber holding publishers back only up to the publish
+ * timeout, and deferred delivery never holding them back
+ */
+class ChangeEventBusTest {
+
+    private static final int RING_SIZE = 8;
+
+    private static final long PUBLISH_TIMEOUT_MS = 500;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ChangeEventBus bus = bus();
+
+    @AfterEach
+    void stopBus() {
+        bus.stop();
+    }
+
+    @Test
+    void asyncSubscribersSeeEveryEventInOrderAcrossWraparounds() throws Exception {
+        int events = RING_SIZE * 1000;
+        List<Long> first = new CopyOnWriteArrayList<>();
+        List<Long> second = new CopyOnWriteArrayList<>();
+        AtomicInteger overruns = new AtomicInteger();
+        bus.subscribeAsync("first", event -> first.add(event.getId()), overruns::incrementAndGet);
+        bus.subscribeAsync("second", event -> second.add(event.getId()), overruns::incrementAndGet);
+
+        for (long id = 0; id < events; id++) {
+            bus.publishSave(ChangeEvent.USERS, id, true, id);
+        }
+        awaitSize(first, events);
+        awaitSize(second, events);
+
+        for (int i = 0; i < events; i++) {
+            assertThat(first.get(i)).isEqualTo(i);
+            assertThat(second.get(i)).isEqualTo(i);
+        }
+        assertThat(overruns).hasValue(0);
+        assertThat(meterRegistry.get("events.publish.timeouts").functionCounter().count()).isZero();
+    }
+
+    @Test
+    void anIdleSubscriberParksUntilTheNextEvent() throws Exception {
+        List<Long> received = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        bus.subscribeAsync("idle", event -> {
+            threads.add(Thread.currentThread());
+            received.add(event.getId());
+        }, () -> { });
+        bus.publishSave(ChangeEvent.USERS, 0L, true, 0L);
+        awaitSize(received, 1);
+
+        Thread consumer = threads.get(0);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (consumer.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        // Parked without a timeout, not polling
+        assertThat(consumer.getState()).isEqualTo(Thread.State.WAITING);
+
+        bus.publishSave(ChangeEvent.USERS, 1L, true, 1L);
+        awaitSize(received, 2);
+        assertThat(received).containsExactly(0L, 1L);
+    }
+
+    @Test
+    void deferredEventsReachAsyncSubscribersAfterTheActionWithoutWaiting() throws Exception {
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> synchronous = new CopyOnWriteArrayList<>();
+        List<Long> received = new CopyOnWriteArrayList<>();
+        bus.subscribe("sync", event -> synchronous.add(event.getId()));
+        bus.subscribeAsync("stalled", event -> {
+            if (event.getId() == 0) {
+                stalled.countDown();
+                await(release);
+            }
+            received.add(event.getId());
+        }, () -> { });
+        bus.publishSave(ChangeEvent.USERS, 0L, true, 0L);
+        assertThat(stalled.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // More than the ring holds, published while the subscriber is stalled
+        int events = RING_SIZE * 2;
+        long start = System.nanoTime();
+        bus.deferAsyncDelivery(() -> {
+            for (long id = 1; id <= events; id++) {
+                bus.publishSave(ChangeEvent.USERS, id, true, id);
+                assertThat(synchronous).contains(id);
+            }
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(PUBLISH_TIMEOUT_MS);
+            release.countDown();
+            return null;
+        });
+
+        awaitLast(received, events);
+        assertThat(received).isSorted().doesNotHaveDuplicates().contains(0L);
+    }
+
+    @Test
+    void aStalledSubscriberHoldsPublishersBackOnlyUntilTheTimeout() throws Exception {
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> received = new CopyOnWriteArrayList<>();
+        AtomicInteger overruns = new AtomicInteger();
+        bus.subscribeAsync("stalled", event -> {
+            if (event.getId() == 0) {
+                stalled.countDown();
+                await(release);
+            }
+            received.add(event.getId());
+        }, overruns::incrementAndGet);
+
+        bus.publishSave(ChangeEvent.USERS, 0L, true, 0L);
+        assertThat(stalled.await(5, TimeUnit.SECONDS)).isTrue();
+        // Event 0 is being handled; events 1 to RING_SIZE - 1 fill the rest of the ring without waiting
+        long start = System.nanoTime();
+        int events = RING_SIZE * 4;
+        for (long id = 1; id < events; id++) {
+            bus.publishSave(ChangeEvent.USERS, id, true, id);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // One full timeout for the first publish past the ring, none for the rest
+        assertThat(elapsedMs).isBetween(PUBLISH_TIMEOUT_MS, PUBLISH_TIMEOUT_MS * 5);
+        assertThat(meterRegistry.get("events.publish.timeouts").functionCounter().count()).isEqualTo(1);
+
+        release.countDown();
+        long last = events - 1;
+        awaitLast(received, last);
+        assertThat(overruns).hasValue(1);
+        assertThat(meterRegistry.get("events.subscriber.overruns").tag("subscriber", "stalled")
+                .functionCounter().count()).isEqualTo(1);
+        // Skips ahead to the event that overwrote its slot, in order from there
+        List<Long> afterOverrun = received.subList(1, received.size());
+        assertThat(afterOverrun).isSorted().doesNotHaveDuplicates();
+        assertThat(afterOverrun.get(0)).isGreaterThan(RING_SIZE);
+
+        // Caught up again, so publishers wait for it once more and it misses nothing
+        for (long id = events; id < events + RING_SIZE * 10; id++) {
+            bus.publishSave(ChangeEvent.USERS, id, true, id);
+        }
+        awaitLast(received, events + RING_SIZE * 10 - 1);
+        assertThat(received.subList(received.indexOf(last), received.size()))
+                .containsExactlyElementsOf(range(last, events + RING_SIZE * 10));
+        assertThat(overruns).hasValue(1);
+    }
+
+    private static List<Long> range(long from, long to) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = from; id < to; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static void awaitSize(List<Long> received, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (received.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(received).hasSize(size);
+    }
+
+    private static void awaitLast(List<Long> received, long id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!received.contains(id) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(received).contains(id);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ChangeEventBus bus() {
+        ChangeEventBus eventBus = new ChangeEventBus();
+        ReflectionTestUtils.setField(eventBus, "requestedRingSize", RING_SIZE);
+        ReflectionTestUtils.setField(eventBus, "publishTimeoutMs", PUBLISH_TIMEOUT_MS);
+        eventBus.init();
+        eventBus.bindTo(meterRegistry);
+        return eventBus;
+    }
+}
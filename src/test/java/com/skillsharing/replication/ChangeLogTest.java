@@ -0,0 +1,133 @@
+package com.skillsharing.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillsharing.events.ChangeEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The change log ring: reads by offset, retention wraparound, waiting for appends, and lost
+ * changes forcing replicas back to a snapshot
+ */
+class ChangeLogTest {
+
+    private static final int RETENTION = 8;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ChangeLog changeLog = changeLog();
+
+    private long sequence;
+
+    @Test
+    void readsReturnRecordsFromTheOffsetUpToMax() throws Exception {
+        appendSaves(5);
+
+        List<ChangeRecord> batch = changeLog.readFrom(1, 3, 0);
+
+        assertThat(batch).extracting(ChangeRecord::getOffset).containsExactly(1L, 2L, 3L);
+        assertThat(batch).extracting(ChangeRecord::getId).containsExactly(1L, 2L, 3L);
+        assertThat(changeLog.readFrom(5, 3, 0)).isEmpty();
+        assertThat(changeLog.head()).isEqualTo(5);
+    }
+
+    @Test
+    void offsetsOverwrittenByWraparoundAreNoLongerReadable() throws Exception {
+        appendSaves(RETENTION * 3 + 2);
+
+        long head = changeLog.head();
+        assertThat(changeLog.readFrom(head - RETENTION - 1, 100, 0)).isNull();
+        assertThat(changeLog.readFrom(head - RETENTION, 100, 0))
+                .extracting(ChangeRecord::getOffset)
+                .containsExactly(18L, 19L, 20L, 21L, 22L, 23L, 24L, 25L);
+    }
+
+    @Test
+    void aWaitingReaderIsWokenByTheNextAppend() throws Exception {
+        appendSaves(2);
+        CompletableFuture<List<ChangeRecord>> read = CompletableFuture.supplyAsync(() -> {
+            try {
+                return changeLog.readFrom(2, 10, 10_000);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        appendSaves(1);
+
+        assertThat(read.get(5, TimeUnit.SECONDS)).extracting(ChangeRecord::getOffset).containsExactly(2L);
+    }
+
+    @Test
+    void aLostChangeSendsEveryReplicaThatHasNotSeenItBackToASnapshot() throws Exception {
+        appendSaves(3);
+        append(new ChangeEvent(sequence, 0, ChangeEvent.USERS, ChangeEvent.SAVE, sequence++, true, new Unserializable()));
+        appendSaves(2);
+
+        assertThat(changeLog.head()).isEqualTo(6);
+        assertThat(changeLog.readFrom(0, 10, 0)).isNull();
+        assertThat(changeLog.readFrom(3, 10, 0)).isNull();
+        assertThat(changeLog.readFrom(4, 10, 0)).extracting(ChangeRecord::getOffset).containsExactly(4L, 5L);
+        assertThat(meterRegistry.counter("replication.log.lost", "cause", "serialization").count()).isEqualTo(1);
+    }
+
+    @Test
+    void eventsOverwrittenOnTheBusSendCaughtUpReplicasBackToASnapshot() throws Exception {
+        appendSaves(3);
+        long caughtUp = changeLog.head();
+        ReflectionTestUtils.invokeMethod(changeLog, "skipMissedChanges");
+        appendSaves(1);
+
+        assertThat(changeLog.readFrom(caughtUp, 10, 0)).isNull();
+        assertThat(changeLog.readFrom(caughtUp + 1, 10, 0)).extracting(ChangeRecord::getOffset).containsExactly(4L);
+        assertThat(meterRegistry.counter("replication.log.lost", "cause", "overrun").count()).isEqualTo(1);
+    }
+
+    private void appendSaves(int count) {
+        for (int i = 0; i < count; i++) {
+            append(new ChangeEvent(sequence, 0, ChangeEvent.USERS, ChangeEvent.SAVE, sequence++, true, Map.of("n", i)));
+        }
+    }
+
+    private void append(ChangeEvent event) {
+        ReflectionTestUtils.invokeMethod(changeLog, "append", event);
+    }
+
+    private ChangeLog changeLog() {
+        ChangeLog log = new ChangeLog();
+        ReflectionTestUtils.setField(log, "role", ReplicationRole.STANDALONE);
+        ReflectionTestUtils.setField(log, "retention", RETENTION);
+        ReflectionTestUtils.setField(log, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(log, "meterRegistry", meterRegistry);
+        log.init();
+        return log;
+    }
+
+    // Fails on every attempt, like an entity whose collection keeps changing mid-walk
+    private static final class Unserializable {
+        private final Collection<String> skills = new AbstractCollection<>() {
+            @Override
+            public Iterator<String> iterator() {
+                throw new ConcurrentModificationException();
+            }
+
+            @Override
+            public int size() {
+                return 1;
+            }
+        };
+    }
+}
@@ -0,0 +1,259 @@
+package com.skillsharing.replication;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillsharing.SkillSharingApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs a primary and a replica as separate JVMs on localhost, each booted from the test
+ * classpath, and drives them over HTTP: catch-up from a snapshot, streaming of later writes,
+ * read-only enforcement and reported lag, in plain TCP and over TLS with stores made by keytool.
+ * Each instance's output is kept under target/multi-jvm for debugging.
+ */
+class ReplicationMultiJvmTest {
+
+    private static final String JWT_SECRET = "multi-jvm-test-secret-at-least-32-bytes";
+
+    private static final String REPLICATION_SECRET = "multi-jvm-replication-secret-32-bytes-or-more";
+
+    private static final String STORE_PASSWORD = "changeit";
+
+    private static final Duration BOOT_TIMEOUT = Duration.ofSeconds(120);
+
+    private static final Duration REPLICATION_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final int STREAMED_USERS = 20;
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    private final List<Process> instances = new ArrayList<>();
+
+    @AfterEach
+    void stopInstances() throws InterruptedException {
+        for (Process instance : instances) {
+            instance.destroy();
+        }
+        for (Process instance : instances) {
+            instance.waitFor();
+        }
+    }
+
+    @Test
+    void replicaCatchesUpFromASnapshotAndFollowsLaterWrites() throws Exception {
+        int replicationPort = freePort();
+        String primary = start("primary", "--replication.role=primary", "--replication.port=" + replicationPort,
+                "--ids.node-id=0");
+        awaitHealthy(primary);
+
+        // A connection that cannot answer the challenge gets nothing but the challenge
+        try (Socket intruder = new Socket("localhost", replicationPort)) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(intruder.getInputStream(), StandardCharsets.UTF_8));
+            assertThat(json.readTree(in.readLine()).has("challenge")).isTrue();
+            Writer out = new OutputStreamWriter(intruder.getOutputStream(), StandardCharsets.UTF_8);
+            out.write("{\"fromOffset\":-1,\"response\":\"guess\"}\n");
+            out.flush();
+            assertThat(in.readLine()).isNull();
+        }
+
+        // Written before the replica exists, so it can only arrive in the snapshot
+        JsonNode alice = register(primary, "alice");
+        String token = alice.get("token").asText();
+
+        String replica = start("replica", "--replication.role=replica", "--replication.primary-host=localhost",
+                "--replication.primary-port=" + replicationPort, "--ids.node-id=1");
+        awaitHealthy(replica);
+
+        HttpResponse<String> fromSnapshot = get(replica, "/api/users/" + alice.get("userId").asLong(), token);
+        assertThat(fromSnapshot.statusCode()).isEqualTo(200);
+        assertThat(json.readTree(fromSnapshot.body()).get("username").asText()).isEqualTo("alice");
+
+        // Written while the replica is connected, so they arrive through the change log
+        List<Long> streamedIds = new ArrayList<>();
+        for (int i = 0; i < STREAMED_USERS; i++) {
+            streamedIds.add(register(primary, "streamed" + i).get("userId").asLong());
+        }
+        for (Long id : streamedIds) {
+            awaitStatus(replica, "/api/users/" + id, token, 200);
+        }
+
+        assertThat(get(primary, "/api/replication/status", null).statusCode()).isEqualTo(403);
+        long head = json.readTree(get(primary, "/api/replication/status", token).body()).get("head").asLong();
+        JsonNode status = awaitJson(replica, "/api/replication/status", token,
+                replicaStatus -> replicaStatus.get("appliedOffset").asLong() >= head);
+        assertThat(status.get("connected").asBoolean()).isTrue();
+        assertThat(status.get("lagRecords").asLong()).isZero();
+
+        HttpResponse<String> write = post(replica, "/api/auth/register", registration("rejected"));
+        assertThat(write.statusCode()).isEqualTo(503);
+        assertThat(post(replica, "/api/auth/login", "{\"username\":\"alice\",\"password\":\"secret1\"}").statusCode())
+                .isEqualTo(200);
+    }
+
+    @Test
+    void replicaFollowsThePrimaryOverTls(@TempDir Path stores) throws Exception {
+        Path keyStore = stores.resolve("primary.p12");
+        Path certificate = stores.resolve("primary.cer");
+        Path trustStore = stores.resolve("trust.p12");
+        keytool("-genkeypair", "-alias", "primary", "-keyalg", "RSA", "-keysize", "2048", "-validity", "2",
+                "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1",
+                "-keystore", keyStore.toString(), "-storetype", "PKCS12", "-storepass", STORE_PASSWORD);
+        keytool("-exportcert", "-alias", "primary", "-keystore", keyStore.toString(), "-storepass", STORE_PASSWORD,
+                "-file", certificate.toString());
+        keytool("-importcert", "-noprompt", "-alias", "primary", "-file", certificate.toString(),
+                "-keystore", trustStore.toString(), "-storetype", "PKCS12", "-storepass", STORE_PASSWORD);
+
+        int replicationPort = freePort();
+        String primary = start("primary-tls", "--replication.role=primary", "--replication.port=" + replicationPort,
+                "--replication.tls.enabled=true", "--replication.tls.key-store=" + keyStore,
+                "--replication.tls.key-store-password=" + STORE_PASSWORD);
+        awaitHealthy(primary);
+        JsonNode alice = register(primary, "alice");
+        String token = alice.get("token").asText();
+
+        String replica = start("replica-tls", "--replication.role=replica", "--replication.primary-host=localhost",
+                "--replication.primary-port=" + replicationPort, "--ids.node-id=1",
+                "--replication.tls.enabled=true", "--replication.tls.trust-store=" + trustStore,
+                "--replication.tls.trust-store-password=" + STORE_PASSWORD);
+        awaitHealthy(replica);
+
+        awaitStatus(replica, "/api/users/" + alice.get("userId").asLong(), token, 200);
+        long bobId = register(primary, "bob").get("userId").asLong();
+        awaitStatus(replica, "/api/users/" + bobId, token, 200);
+    }
+
+    private static void keytool(String... args) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "keytool").toString());
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertThat(process.waitFor()).as(output).isZero();
+    }
+
+    private String start(String name, String... args) throws IOException {
+        int httpPort = freePort();
+        Path log = Path.of("target", "multi-jvm", name + ".log");
+        Files.createDirectories(log.getParent());
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        // Devtools is on the test classpath; its restarter and LiveReload port are of no use here
+        command.add("-Dspring.devtools.restart.enabled=false");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(SkillSharingApplication.class.getName());
+        command.add("--server.port=" + httpPort);
+        command.add("--jwt.secret=" + JWT_SECRET);
+        command.add("--replication.secret=" + REPLICATION_SECRET);
+        command.add("--spring.jpa.show-sql=false");
+        command.add("--spring.devtools.livereload.enabled=false");
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        instances.add(process);
+        return "http://localhost:" + httpPort;
+    }
+
+    private void awaitHealthy(String instance) throws Exception {
+        long deadline = System.nanoTime() + BOOT_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            assertThat(instances).allMatch(Process::isAlive, "instances still running (see target" + File.separator + "multi-jvm)");
+            try {
+                if (get(instance, "/actuator/health", null).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException notListeningYet) {
+                // Still booting
+            }
+            Thread.sleep(500);
+        }
+        throw new AssertionError(instance + " not healthy within " + BOOT_TIMEOUT);
+    }
+
+    private void awaitStatus(String instance, String path, String token, int expected) throws Exception {
+        long deadline = System.nanoTime() + REPLICATION_TIMEOUT.toNanos();
+        int status;
+        do {
+            status = get(instance, path, token).statusCode();
+            if (status == expected) {
+                return;
+            }
+            Thread.sleep(50);
+        } while (System.nanoTime() < deadline);
+        throw new AssertionError(path + " on " + instance + " returned " + status + ", expected " + expected);
+    }
+
+    private JsonNode awaitJson(String instance, String path, String token, Predicate<JsonNode> condition) throws Exception {
+        long deadline = System.nanoTime() + REPLICATION_TIMEOUT.toNanos();
+        JsonNode body;
+        do {
+            body = json.readTree(get(instance, path, token).body());
+            if (condition.test(body)) {
+                return body;
+            }
+            Thread.sleep(50);
+        } while (System.nanoTime() < deadline);
+        throw new AssertionError(path + " on " + instance + " never matched; last " + body);
+    }
+
+    private JsonNode register(String instance, String username) throws Exception {
+        HttpResponse<String> response = post(instance, "/api/auth/register", registration(username));
+        assertThat(response.statusCode()).as(response.body()).isEqualTo(200);
+        return json.readTree(response.body());
+    }
+
+    private static String registration(String username) {
+        return "{\"username\":\"" + username + "\",\"email\":\"" + username + "@example.com\","
+                + "\"password\":\"secret1\",\"fullName\":\"" + username + "\"}";
+    }
+
+    private HttpResponse<String> get(String instance, String path, String token) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(instance + path)).GET();
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String instance, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(instance + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.skillsharing.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.skillsharing.repository.ShardRouterTest.ENTRIES;
+import static com.skillsharing.repository.ShardRouterTest.OWNERS;
+import static com.skillsharing.repository.ShardRouterTest.filledStore;
+import static com.skillsharing.repository.ShardRouterTest.router;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Single-threaded per-owner lookup throughput for 1, 2, 4 and 8 partitions, on the stores
+ * ShardRouterTest fills. All partitions share this JVM, so this shows the narrower scans, not
+ * extra capacity.
+ *
+ * <p>Not part of the default test run: mvn test -Dtest=ShardRouterBenchmark
+ */
+class ShardRouterBenchmark {
+
+    private static final int LOOKUPS = 300;
+
+    private static final int WARM_UP_ROUNDS = 4;
+
+    private static final int TIMED_ROUNDS = 4;
+
+    @Test
+    void perOwnerLookupThroughputByPartitionCount() {
+        int[] partitionCounts = {1, 2, 4, 8};
+        List<ShardedMap<Long>> stores = new ArrayList<>();
+        for (int partitions : partitionCounts) {
+            stores.add(filledStore(router(partitions), "sessions"));
+        }
+        // Rounds go over every store in turn, so the JIT has settled on the same code for all of
+        // them before the timed rounds, and machine noise is spread evenly
+        double[] lookupsPerSecond = new double[partitionCounts.length];
+        for (int round = 0; round < WARM_UP_ROUNDS + TIMED_ROUNDS; round++) {
+            for (int i = 0; i < stores.size(); i++) {
+                double measured = measureLookups(stores.get(i));
+                if (round >= WARM_UP_ROUNDS) {
+                    lookupsPerSecond[i] = Math.max(lookupsPerSecond[i], measured);
+                }
+            }
+        }
+
+        StringBuilder report = new StringBuilder("event=shard.benchmark");
+        for (int i = 0; i < partitionCounts.length; i++) {
+            report.append(String.format(" partitions%d=%.0f/s(x%.1f)", partitionCounts[i], lookupsPerSecond[i],
+                    lookupsPerSecond[i] / lookupsPerSecond[0]));
+        }
+        System.out.println(report);
+    }
+
+    private static double measureLookups(ShardedMap<Long> store) {
+        long found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            long owner = (i * 31L) % OWNERS;
+            found += store.findRoutedTo(owner, value -> value % OWNERS == owner).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(found).isEqualTo((long) LOOKUPS * (ENTRIES / OWNERS));
+        return LOOKUPS / (elapsed / 1e9);
+    }
+}
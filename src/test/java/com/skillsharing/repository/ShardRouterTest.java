@@ -0,0 +1,161 @@
+package com.skillsharing.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Multi-partition stores in process: rebalancing on join and leave, and how much of the store a
+ * per-owner lookup scans
+ */
+class ShardRouterTest {
+
+    static final int ENTRIES = 100_000;
+
+    static final int OWNERS = 1_000;
+
+    @Test
+    void addingAPartitionMovesOnlyItsShareAndKeepsEveryEntry() {
+        ShardRouter router = router(4);
+        ShardedMap<Long> store = filledStore(router, "sessions");
+
+        Map<String, Integer> moved = router.addPartition("partition-4");
+
+        // Ideally 1/5 of the entries; virtual nodes keep it close
+        assertThat(moved.get("sessions")).isBetween(ENTRIES / 10, ENTRIES * 3 / 10);
+        assertThat(router.partitions()).contains("partition-4");
+        assertThat(store.partitionSizes().get("partition-4")).isEqualTo(moved.get("sessions"));
+        assertAllPresent(store);
+    }
+
+    @Test
+    void removingAPartitionMovesOnlyItsEntriesAndKeepsEveryEntry() {
+        ShardRouter router = router(4);
+        ShardedMap<Long> store = filledStore(router, "sessions");
+        int owned = store.partitionSizes().get("partition-2");
+
+        Map<String, Integer> moved = router.removePartition("partition-2");
+
+        assertThat(moved.get("sessions")).isEqualTo(owned);
+        assertThat(store.partitionSizes()).doesNotContainKey("partition-2");
+        assertAllPresent(store);
+        assertThat(router.removePartition("partition-2")).isEmpty();
+    }
+
+    @Test
+    void theLastPartitionCannotBeRemoved() {
+        ShardRouter router = router(1);
+        assertThatThrownBy(() -> router.removePartition("partition-0")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void readsAndWritesDuringRebalancingNeverMissAnEntry() throws Exception {
+        ShardRouter router = router(4);
+        ShardedMap<Long> store = filledStore(router, "sessions");
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong misses = new AtomicLong();
+        AtomicLong reads = new AtomicLong();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            Thread reader = new Thread(() -> {
+                long i = 0;
+                while (running.get()) {
+                    if (store.get(idOf(i)) == null) {
+                        misses.incrementAndGet();
+                    }
+                    reads.incrementAndGet();
+                    i = (i + 7919) % ENTRIES;
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        Thread writer = new Thread(() -> {
+            long i = 0;
+            while (running.get()) {
+                store.put(idOf(i), i % OWNERS, i);
+                i = (i + 104729) % ENTRIES;
+            }
+        });
+        writer.start();
+
+        for (int round = 0; round < 10; round++) {
+            router.addPartition("partition-extra-" + round);
+            router.removePartition("partition-extra-" + round);
+        }
+        router.addPartition("partition-extra");
+        router.removePartition("partition-1");
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        writer.join();
+
+        assertThat(reads.get()).isPositive();
+        assertThat(misses.get()).isZero();
+        assertAllPresent(store);
+    }
+
+    /**
+     * A per-owner lookup tests only the entries in the owner's partition, so the entries scanned
+     * per lookup fall about in proportion to the partition count
+     */
+    @Test
+    void perOwnerLookupsScanOnlyTheOwnersPartition() {
+        int[] partitionCounts = {1, 2, 4, 8};
+        for (int partitions : partitionCounts) {
+            ShardedMap<Long> store = filledStore(router(partitions), "sessions");
+            AtomicLong scanned = new AtomicLong();
+            long found = 0;
+            for (long owner = 0; owner < OWNERS; owner++) {
+                long wanted = owner;
+                found += store.findRoutedTo(owner, value -> {
+                    scanned.incrementAndGet();
+                    return value % OWNERS == wanted;
+                }).size();
+            }
+
+            assertThat(found).isEqualTo(ENTRIES);
+            // Ideal is ENTRIES / partitions; uneven partition sizes push the average above it
+            assertThat(scanned.get() / OWNERS).as("%d partitions", partitions)
+                    .isBetween((long) ENTRIES / partitions, (long) ENTRIES * 13 / 10 / partitions);
+        }
+    }
+
+    static ShardRouter router(int partitions) {
+        ShardRouter router = new ShardRouter();
+        ReflectionTestUtils.setField(router, "partitionCount", partitions);
+        ReflectionTestUtils.setField(router, "virtualNodes", 128);
+        router.init();
+        return router;
+    }
+
+    // Entity i is owned by i % OWNERS, the way sessions are routed by their teacher
+    static ShardedMap<Long> filledStore(ShardRouter router, String name) {
+        ShardedMap<Long> store = router.newStore(name);
+        for (long i = 0; i < ENTRIES; i++) {
+            store.put(idOf(i), i % OWNERS, i);
+        }
+        return store;
+    }
+
+    // Scattered like generated IDs; dense 0..n keys would make one big map unrealistically cache-friendly
+    private static long idOf(long i) {
+        return (i + 1) * 0x9E3779B97F4A7C15L >>> 11;
+    }
+
+    private static void assertAllPresent(ShardedMap<Long> store) {
+        assertThat(store.size()).isEqualTo(ENTRIES);
+        for (long i = 0; i < ENTRIES; i++) {
+            assertThat(store.get(idOf(i))).isEqualTo(i);
+        }
+    }
+}